@@ -0,0 +1,87 @@
+package ru.practicum.ewm.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор ответа GET /stats: как в StatsClient.getStats (RestTemplate, Object.class - списки LinkedHashMap)
+ * и как в StatsClient.getViewStats (заранее построенный ObjectReader для List&lt;ViewStats&gt;).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewStatsDecodingBenchmark {
+    @Param({"1", "100", "10000"})
+    private int rows;
+
+    private byte[] json;
+    private MappingJackson2HttpMessageConverter converter;
+    private ObjectReader viewStatsReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<ViewStats> stats = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            stats.add(new ViewStats("main-service", "/events/" + i, rows - i));
+        }
+        json = objectMapper.writeValueAsBytes(stats);
+        converter = new MappingJackson2HttpMessageConverter(objectMapper);
+        viewStatsReader = objectMapper.readerFor(new TypeReference<List<ViewStats>>() {
+        });
+    }
+
+    @Benchmark
+    public Object untyped() throws IOException {
+        return converter.read(Object.class, jsonMessage());
+    }
+
+    @Benchmark
+    public List<ViewStats> typed() throws IOException {
+        return viewStatsReader.readValue(jsonMessage().getBody());
+    }
+
+    private HttpInputMessage jsonMessage() {
+        InputStream body = new ByteArrayInputStream(json);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+}
@@ -3,8 +3,10 @@ package ru.practicum.main;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @ComponentScan(basePackages = {"ru.practicum.main", "ru.practicum.ewm.client.stats.stats"})
 public class MainServerApp {
     public static void main(String[] args) {
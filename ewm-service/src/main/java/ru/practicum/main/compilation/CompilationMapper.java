@@ -5,8 +5,10 @@ import ru.practicum.main.compilation.dto.NewCompilationDto;
 import ru.practicum.main.compilation.dto.UpdateCompilationRequest;
 import ru.practicum.main.compilation.model.Compilation;
 import ru.practicum.main.event.EventMapper;
+import ru.practicum.main.event.dto.EventShortDto;
 import ru.practicum.main.event.model.Event;
 
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -21,6 +23,15 @@ public class CompilationMapper {
                 .build();
     }
 
+    public static CompilationDto toCompilationDto(Compilation compilation, List<EventShortDto> events) {
+        return CompilationDto.builder()
+                .id(compilation.getId())
+                .events(events)
+                .pinned(compilation.isPinned())
+                .title(compilation.getTitle())
+                .build();
+    }
+
     public static Compilation toCompilation(NewCompilationDto newCompilationDto, Set<Event> events) {
         return Compilation.builder()
                 .events(events)
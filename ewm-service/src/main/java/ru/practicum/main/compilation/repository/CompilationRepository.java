@@ -2,8 +2,11 @@ package ru.practicum.main.compilation.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.main.compilation.model.Compilation;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
@@ -13,4 +16,13 @@ public interface CompilationRepository extends JpaRepository<Compilation, Long>
     Compilation getCompilationById(Long compId);
 
     void removeCompilationById(Long compId);
+
+    @Query("SELECT c.id AS compilationId, e.id AS eventId FROM Compilation c JOIN c.events e WHERE c.id IN :ids")
+    List<CompilationEventId> getCompilationEventIds(@Param("ids") Collection<Long> compilationIds);
+
+    interface CompilationEventId {
+        Long getCompilationId();
+
+        Long getEventId();
+    }
 }
\ No newline at end of file
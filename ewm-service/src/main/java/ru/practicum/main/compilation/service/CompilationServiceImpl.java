@@ -13,14 +13,18 @@ import ru.practicum.main.compilation.dto.NewCompilationDto;
 import ru.practicum.main.compilation.dto.UpdateCompilationRequest;
 import ru.practicum.main.compilation.model.Compilation;
 import ru.practicum.main.compilation.repository.CompilationRepository;
+import ru.practicum.main.event.dto.EventShortDto;
 import ru.practicum.main.event.model.Event;
 import ru.practicum.main.event.repository.EventRepository;
 import ru.practicum.main.exception.DuplicateNameException;
 import ru.practicum.main.exception.NotFoundException;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -43,28 +47,22 @@ public class CompilationServiceImpl implements CompilationService {
         Integer pageNumber = from / size;
         Pageable pageable = PageRequest.of(pageNumber, size);
         if (pinned != null) {
-            return compilationRepository.getCompilationByPinnedIs(pinned, pageable).stream()
-                    .map((compilation) -> CompilationMapper.toCompilationDto(compilation))
-                    .collect(Collectors.toList());
+            return toCompilationDtos(compilationRepository.getCompilationByPinnedIs(pinned, pageable));
         }
 
-        return compilationRepository.findAll(pageable).stream()
-                .map((compilation) -> CompilationMapper.toCompilationDto(compilation))
-                .collect(Collectors.toList());
+        return toCompilationDtos(compilationRepository.findAll(pageable).getContent());
     }
 
     @Transactional
     @Override
     public CompilationDto getCompilationByIdPublic(Long compId) {
-        CompilationDto compilationDto = CompilationMapper
-                .toCompilationDto(compilationRepository.getCompilationById(compId));
-        if (compilationDto == null) {
+        Compilation compilation = compilationRepository.getCompilationById(compId);
+        if (compilation == null) {
             throw new NotFoundException("The required object was not found.");
         }
-        return compilationDto;
+        return toCompilationDtos(List.of(compilation)).get(0);
     }
 
-
     @Transactional
     @Override
     public CompilationDto addCompilationAdmin(NewCompilationDto newCompilationDto) {
@@ -113,4 +111,28 @@ public class CompilationServiceImpl implements CompilationService {
 
         return CompilationMapper.toCompilationDto(compilationRepository.save(compilation));
     }
-}
\ No newline at end of file
+
+    // События всех подборок страницы читаются одной проекцией в EventShortDto, без загрузки сущностей Event
+    private List<CompilationDto> toCompilationDtos(List<Compilation> compilations) {
+        if (compilations.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<CompilationRepository.CompilationEventId> compilationEventIds = compilationRepository.getCompilationEventIds(
+                compilations.stream().map(Compilation::getId).collect(Collectors.toList()));
+        Map<Long, EventShortDto> events = compilationEventIds.isEmpty()
+                ? Map.of()
+                : eventRepository.getEventShortDtosByIdIn(compilationEventIds.stream()
+                        .map(CompilationRepository.CompilationEventId::getEventId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(EventShortDto::getId, Function.identity()));
+        Map<Long, List<EventShortDto>> eventsByCompilation = compilationEventIds.stream()
+                .collect(Collectors.groupingBy(CompilationRepository.CompilationEventId::getCompilationId,
+                        Collectors.mapping(ids -> events.get(ids.getEventId()), Collectors.toList())));
+
+        return compilations.stream()
+                .map(compilation -> CompilationMapper.toCompilationDto(compilation,
+                        eventsByCompilation.getOrDefault(compilation.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+    }
+}
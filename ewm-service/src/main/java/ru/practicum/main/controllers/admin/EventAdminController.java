@@ -8,8 +8,11 @@ import ru.practicum.main.event.dto.EventFullDto;
 import ru.practicum.main.event.dto.UpdateEventAdminRequest;
 import ru.practicum.main.event.service.EventServiceImpl;
 import ru.practicum.main.event.service.EventService;
+import ru.practicum.main.pagination.CursorPage;
+import ru.practicum.main.pagination.PageCursor;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
@@ -31,17 +34,26 @@ public class EventAdminController {
 
     @GetMapping
     public List<EventFullDto> getEventsAdmin(HttpServletRequest request,
+                                             HttpServletResponse response,
                                              @RequestParam(required = false) List<Long> users,
                                              @RequestParam(required = false) List<String> states,
                                              @RequestParam(required = false) List<Long> categories,
                                              @RequestParam(required = false) String rangeStart,
                                              @RequestParam(required = false) String rangeEnd,
                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                             @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                             @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                             @RequestParam(required = false) String cursor) {
         log.info("Request to the endpoint was received: '{} {}', string of request parameters: '{}'",
                 request.getMethod(), request.getRequestURI(), request.getQueryString());
-        List<EventFullDto> list = eventService.getEventsAdmin(users, states, categories, rangeStart, rangeEnd, from, size);
-        return list;
+        if (cursor == null) {
+            List<EventFullDto> list = eventService.getEventsAdmin(users, states, categories, rangeStart, rangeEnd, from, size);
+            return list;
+        }
+        CursorPage<EventFullDto> page = eventService.getEventsAdmin(users, states, categories, rangeStart, rangeEnd, cursor, size);
+        if (page.getNextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getContent();
     }
 
 
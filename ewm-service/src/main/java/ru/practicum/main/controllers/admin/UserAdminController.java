@@ -14,12 +14,15 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.main.pagination.CursorPage;
+import ru.practicum.main.pagination.PageCursor;
 import ru.practicum.main.user.dto.NewUserRequest;
 import ru.practicum.main.user.dto.UserDto;
 import ru.practicum.main.user.service.UserServiceImpl;
 import ru.practicum.main.user.service.UserService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -40,13 +43,22 @@ public class UserAdminController {
 
     @GetMapping
     public List<UserDto> getUsers(HttpServletRequest request,
+                                  HttpServletResponse response,
                                   @RequestParam (required = false) List<Long> ids,
                                   @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                  @RequestParam(required = false) String cursor) {
         log.info("Request to the endpoint was received: '{} {}', string of request parameters: '{}'",
                 request.getMethod(), request.getRequestURI(), request.getQueryString());
-        log.info("Get user with userId={}, from={}, size={}", ids, from, size);
-        return userService.getUsersAdmin(ids, from, size);
+        log.info("Get user with userId={}, from={}, size={}, cursor={}", ids, from, size, cursor);
+        if (cursor == null) {
+            return userService.getUsersAdmin(ids, from, size);
+        }
+        CursorPage<UserDto> page = userService.getUsersAdmin(ids, cursor, size);
+        if (page.getNextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getContent();
     }
 
     @ResponseStatus(HttpStatus.CREATED)
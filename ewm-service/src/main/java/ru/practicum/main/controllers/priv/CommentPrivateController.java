@@ -17,8 +17,11 @@ import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.main.event.dto.CommentDto;
 import ru.practicum.main.event.service.CommentService;
 import ru.practicum.main.event.service.CommentServiceImpl;
+import ru.practicum.main.pagination.CursorPage;
+import ru.practicum.main.pagination.PageCursor;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -69,13 +72,22 @@ public class CommentPrivateController {
 
     @GetMapping("/events/{eventId}/comments")
     public List<CommentDto> getComments(HttpServletRequest request,
+                                        HttpServletResponse response,
                                         @PathVariable Long eventId,
                                         @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                        @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                        @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                        @RequestParam(required = false) String cursor) {
         log.info("Request to the endpoint was received: '{} {}', string of request parameters: '{}'",
                 request.getMethod(), request.getRequestURI(), request.getQueryString());
-        log.info("Get comments by event eventId={}, from={}, size={}", eventId, from, size);
-        return commentService.getCommentsPrivate(eventId, from, size);
+        log.info("Get comments by event eventId={}, from={}, size={}, cursor={}", eventId, from, size, cursor);
+        if (cursor == null) {
+            return commentService.getCommentsPrivate(eventId, from, size);
+        }
+        CursorPage<CommentDto> page = commentService.getCommentsPrivate(eventId, cursor, size);
+        if (page.getNextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getContent();
     }
 
     @GetMapping("/comments/{commentId}")
@@ -89,6 +89,7 @@ public class EventMapper {
                 .state(oldEvent.getState())
                 .title(updateEventAdminRequest.getTitle() == null ? oldEvent.getTitle() : updateEventAdminRequest.getTitle())
                 .views(oldEvent.getViews())
+                .version(oldEvent.getVersion())
                 .build();
     }
 
@@ -108,6 +109,7 @@ public class EventMapper {
                 .requestModeration(updateEventUserRequest.getRequestModeration() == null ? oldEvent.getRequestModeration() : updateEventUserRequest.getRequestModeration())
                 .title(updateEventUserRequest.getTitle() == null ? oldEvent.getTitle() : updateEventUserRequest.getTitle())
                 .views(oldEvent.getViews())
+                .version(oldEvent.getVersion())
                 .build();
 
     }
@@ -9,6 +9,9 @@ import lombok.Setter;
 import ru.practicum.main.category.dto.CategoryDto;
 import ru.practicum.main.user.dto.UserShortDto;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
 @Getter
 @Setter
 @Builder
@@ -26,4 +29,13 @@ public class EventShortDto {
     private Boolean paid;
     private String title;
     private Long views;
+
+    // Конструктор для JPQL/Criteria-проекций: поля читаются запросом напрямую, без загрузки сущностей Event
+    public EventShortDto(Long id, String annotation, Long categoryId, String categoryName, Long confirmedRequests,
+                         LocalDateTime eventDate, Long initiatorId, String initiatorName, Boolean paid, String title,
+                         Long views) {
+        this(id, annotation, new CategoryDto(categoryId, categoryName), confirmedRequests,
+                eventDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                new UserShortDto(initiatorId, initiatorName), paid, title, views);
+    }
 }
\ No newline at end of file
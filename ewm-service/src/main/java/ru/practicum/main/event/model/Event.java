@@ -14,27 +14,46 @@ import ru.practicum.main.user.model.User;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
+import javax.persistence.FetchType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Entity
 @Getter
 @Setter
-@EqualsAndHashCode
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @ToString
 @Table(name = "events")
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Event.SHORT_GRAPH, attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("initiator")}),
+        @NamedEntityGraph(name = Event.FULL_GRAPH, attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("initiator"),
+                @NamedAttributeNode("location")})
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Event {
+    // Планы загрузки для EventShortDto и EventFullDto: связи ленивые и подтягиваются одним join
+    public static final String SHORT_GRAPH = "Event.short";
+    public static final String FULL_GRAPH = "Event.full";
 
+    // equals/hashCode только по id, а toString без связей: иначе они подгружают ленивые category, initiator и location
     @Id
+    @EqualsAndHashCode.Include
     @Column
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -42,11 +61,13 @@ public class Event {
     @Column
     private String annotation;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
-    @Column
+    // Меняется только условным UPDATE в EventRepository, сохранение сущности счётчик не перезаписывает
+    @Column(updatable = false)
     private Long confirmedRequests;
 
     @Column
@@ -58,11 +79,13 @@ public class Event {
     @Column
     private LocalDateTime eventDate;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "initiator_id")
     private User initiator;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id")
     private Location location;
 
@@ -84,7 +107,10 @@ public class Event {
     @Column
     private String title;
 
-    @Column
+    @Column(updatable = false)
     private Long views;
 
+    @Version
+    private Long version;
+
 }
\ No newline at end of file
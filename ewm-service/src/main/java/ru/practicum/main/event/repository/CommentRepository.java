@@ -3,13 +3,29 @@ package ru.practicum.main.event.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.main.event.model.Comment;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> getCommentByEventId(Long eventId, Pageable pageable);
 
+    // event_id в ORDER BY и нижняя граница по created нужны, чтобы страница читалась по индексу (event_id, created, id)
+    // без сортировки всех комментариев события
+    @Query("SELECT c FROM Comment c WHERE c.event.id = :eventId ORDER BY c.event.id, c.created, c.id")
+    List<Comment> getCommentsByEventIdFirst(@Param("eventId") Long eventId, Pageable pageable);
+
+    @Query("SELECT c FROM Comment c WHERE c.event.id = :eventId " +
+            "AND c.created >= :created AND (c.created > :created OR c.id > :id) " +
+            "ORDER BY c.event.id, c.created, c.id")
+    List<Comment> getCommentsByEventIdAfter(@Param("eventId") Long eventId,
+                                            @Param("created") LocalDateTime created,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+
     Comment getCommentById(Long commentId);
 
 }
\ No newline at end of file
@@ -1,11 +1,17 @@
 package ru.practicum.main.event.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.main.event.dto.EventShortDto;
 import ru.practicum.main.event.model.Event;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 public interface EventRepositoryCustom {
-    List<Event> searchWithParametrs(String state, List<Long> category, Boolean paid, LocalDateTime timeStart, LocalDateTime timeEnd, String text, Pageable pageable);
+    List<EventShortDto> searchWithParametrs(Specification<Event> specification, Pageable pageable);
+
+    List<Event> findEvents(Specification<Event> specification, Sort sort, int limit);
+
+    List<Event> findEvents(Specification<Event> specification, Pageable pageable);
 }
@@ -0,0 +1,98 @@
+package ru.practicum.main.event.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.main.category.model.Category;
+import ru.practicum.main.event.dto.EventShortDto;
+import ru.practicum.main.event.model.Event;
+import ru.practicum.main.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // В отличие от findAll(Specification, Pageable) не делает отдельный count-запрос
+    // и сразу строит EventShortDto, не загружая сущности в контекст персистентности
+    @Override
+    public List<EventShortDto> searchWithParametrs(Specification<Event> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventShortDto> query = cb.createQuery(EventShortDto.class);
+        Root<Event> root = query.from(Event.class);
+        Join<Event, Category> category = root.join("category");
+        Join<Event, User> initiator = root.join("initiator");
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(toOrders(pageable.getSort(), root, cb));
+        }
+
+        query.select(cb.construct(EventShortDto.class,
+                root.get("id"),
+                root.get("annotation"),
+                category.get("id"),
+                category.get("name"),
+                root.get("confirmedRequests"),
+                root.get("eventDate"),
+                initiator.get("id"),
+                initiator.get("name"),
+                root.get("paid"),
+                root.get("title"),
+                root.get("views")));
+        TypedQuery<EventShortDto> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    // Первые limit строк без OFFSET и count-запроса; связи грузятся тем же запросом по Event.FULL_GRAPH
+    @Override
+    public List<Event> findEvents(Specification<Event> specification, Sort sort, int limit) {
+        return findEvents(specification, sort, 0, limit);
+    }
+
+    // Страница по OFFSET, тоже без count-запроса
+    @Override
+    public List<Event> findEvents(Specification<Event> specification, Pageable pageable) {
+        return findEvents(specification, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize());
+    }
+
+    private List<Event> findEvents(Specification<Event> specification, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Event> query = cb.createQuery(Event.class);
+        Root<Event> root = query.from(Event.class);
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query.select(root))
+                .setHint("javax.persistence.fetchgraph", entityManager.getEntityGraph(Event.FULL_GRAPH))
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.main.event.repository.dialect;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+// Для H2 (профили ci,test) полнотекстового индекса нет, ищем по подстроке.
+// Каждый аргумент в шаблоне только один раз: параметр запроса связывается единожды
+public class EventH2Dialect extends H2Dialect {
+    public EventH2Dialect() {
+        super();
+        registerFunction(EventSearchFunctions.TEXT_MATCH, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(lower(?1 || ' ' || ?2) like lower('%' || ?3 || '%'))"));
+        registerFunction(EventSearchFunctions.TEXT_RANK, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+                "(case when locate(lower(?3), lower(?1)) > 0 then 1.0 else 0.5 end)"));
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.main.event.repository.dialect;
+
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+// Выражение должно совпадать с events_text_search_idx из schema-postgresql.sql, иначе индекс не используется
+public class EventPostgreSQLDialect extends PostgreSQL10Dialect {
+    private static final String DOCUMENT = "to_tsvector('simple', ?1 || ' ' || ?2)";
+    private static final String QUERY = "plainto_tsquery('simple', ?3)";
+
+    public EventPostgreSQLDialect() {
+        super();
+        registerFunction(EventSearchFunctions.TEXT_MATCH,
+                new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN, "(" + DOCUMENT + " @@ " + QUERY + ")"));
+        registerFunction(EventSearchFunctions.TEXT_RANK,
+                new SQLFunctionTemplate(StandardBasicTypes.DOUBLE, "ts_rank(" + DOCUMENT + ", " + QUERY + ")"));
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.main.event.repository.dialect;
+
+public final class EventSearchFunctions {
+    // (annotation, description, text) -> boolean
+    public static final String TEXT_MATCH = "event_text_match";
+    // (annotation, description, text) -> double
+    public static final String TEXT_RANK = "event_text_rank";
+
+    private EventSearchFunctions() {
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.main.event.service;
 
 import ru.practicum.main.event.dto.CommentDto;
+import ru.practicum.main.pagination.CursorPage;
 
 import java.util.List;
 
@@ -13,6 +14,8 @@ public interface CommentService {
 
     List<CommentDto> getCommentsPrivate(Long eventId, Integer from, Integer size);
 
+    CursorPage<CommentDto> getCommentsPrivate(Long eventId, String cursor, Integer size);
+
     CommentDto getCommentByIdPrivate(Long commentId);
 
     void deleteCommentByIdAdmin(Long userId, Long commentId);
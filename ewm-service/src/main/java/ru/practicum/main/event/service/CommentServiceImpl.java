@@ -12,6 +12,8 @@ import ru.practicum.main.event.model.Event;
 import ru.practicum.main.event.repository.CommentRepository;
 import ru.practicum.main.event.repository.EventRepository;
 import ru.practicum.main.exception.NotFoundException;
+import ru.practicum.main.pagination.CursorPage;
+import ru.practicum.main.pagination.PageCursor;
 import ru.practicum.main.user.model.User;
 import ru.practicum.main.user.repository.UserRepository;
 
@@ -94,6 +96,36 @@ public class CommentServiceImpl implements CommentService {
         return commentsDto;
     }
 
+    // Keyset-пагинация по (created, id): следующая страница начинается сразу после позиции из курсора
+    @Transactional
+    @Override
+    public CursorPage<CommentDto> getCommentsPrivate(Long eventId, String cursor, Integer size) {
+        PageCursor pageCursor = PageCursor.decode(cursor, PageCursor.Kind.COMMENT);
+        // Берём на одну строку больше, чтобы понять, есть ли следующая страница
+        Pageable pageable = PageRequest.of(0, size + 1);
+
+        List<Comment> comments;
+        if (pageCursor == null) {
+            comments = commentRepository.getCommentsByEventIdFirst(eventId, pageable);
+        } else {
+            comments = commentRepository.getCommentsByEventIdAfter(eventId, pageCursor.getTime(), pageCursor.getId(), pageable);
+        }
+        // Пустая страница у существующего события - пустой список на любой странице, 404 - только если события нет
+        if (comments.isEmpty()) {
+            validateIdEvent(eventId);
+        }
+
+        String nextCursor = null;
+        if (comments.size() > size) {
+            comments = comments.subList(0, size);
+            Comment last = comments.get(size - 1);
+            nextCursor = PageCursor.encode(PageCursor.Kind.COMMENT, last.getCreated(), last.getId());
+        }
+        return new CursorPage<>(comments.stream()
+                .map(comment -> CommentMapper.toCommentDto(comment))
+                .collect(Collectors.toList()), nextCursor);
+    }
+
     @Transactional
     @Override
     public CommentDto getCommentByIdPrivate(Long commentId) {
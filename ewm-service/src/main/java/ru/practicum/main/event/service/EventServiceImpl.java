@@ -2,14 +2,16 @@ package ru.practicum.main.event.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.client.stats.stats.StatsClient;
+import ru.practicum.ewm.client.stats.stats.StatsHitBuffer;
 import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
-import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
 import ru.practicum.main.category.model.Category;
 import ru.practicum.main.category.repository.CategoryRepository;
 import ru.practicum.main.event.EventMapper;
@@ -31,10 +33,13 @@ import ru.practicum.main.exception.StateArgumentException;
 import ru.practicum.main.exception.StatusPerticipationRequestException;
 import ru.practicum.main.location.model.Location;
 import ru.practicum.main.location.repository.LocationRepository;
+import ru.practicum.main.pagination.CursorPage;
+import ru.practicum.main.pagination.PageCursor;
 import ru.practicum.main.participation.ParticipationMapper;
 import ru.practicum.main.participation.dto.ParticipationRequestDto;
 import ru.practicum.main.participation.model.ParticipationRequest;
 import ru.practicum.main.participation.repository.ParticipationRepository;
+import ru.practicum.main.transaction.OptimisticRetryExecutor;
 import ru.practicum.main.user.model.User;
 import ru.practicum.main.user.repository.UserRepository;
 
@@ -42,6 +47,8 @@ import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -56,6 +63,9 @@ public class EventServiceImpl implements EventService {
     private final ParticipationRepository participationRepository;
     private final LocationRepository locationRepository;
     private final StatsClient statsClient;
+    private final StatsHitBuffer statsHitBuffer;
+    private final EventViewCounter eventViewCounter;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
 
     @Autowired
     public EventServiceImpl(EventRepository eventRepository,
@@ -63,7 +73,10 @@ public class EventServiceImpl implements EventService {
                             UserRepository userRepository,
                             ParticipationRepository participationRepository,
                             LocationRepository locationRepository,
-                            StatsClient statsClient) {
+                            StatsClient statsClient,
+                            StatsHitBuffer statsHitBuffer,
+                            EventViewCounter eventViewCounter,
+                            OptimisticRetryExecutor optimisticRetryExecutor) {
         this.eventRepository = eventRepository;
         this.categoryRepository = categoryRepository;
         this.userRepository = userRepository;
@@ -71,6 +84,9 @@ public class EventServiceImpl implements EventService {
         this.locationRepository = locationRepository;
 
         this.statsClient = statsClient;
+        this.statsHitBuffer = statsHitBuffer;
+        this.eventViewCounter = eventViewCounter;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
     }
 
     @Transactional
@@ -79,11 +95,7 @@ public class EventServiceImpl implements EventService {
 
         Integer pageNumber = from / size;
         Pageable pageable = PageRequest.of(pageNumber, size);
-        List<EventShortDto> list = eventRepository.getEventsByInitiatorId(userId, pageable)
-                .stream()
-                .map((event) -> EventMapper.toEventShortDto(event))
-                .collect(Collectors.toList());
-        return list;
+        return eventRepository.getEventShortDtosByInitiatorId(userId, pageable);
     }
 
     @Transactional
@@ -179,11 +191,16 @@ public class EventServiceImpl implements EventService {
         return list;
     }
 
-    @Transactional
     @Override
     public EventRequestStatusUpdateResult updateEventRequestStatusPrivate(Long userId,
                                                                           Long eventId,
                                                                           EventRequestStatusUpdateRequest eventRequestStatusUpdateRequest) {
+        return optimisticRetryExecutor.execute(() -> updateEventRequestStatus(userId, eventId, eventRequestStatusUpdateRequest));
+    }
+
+    private EventRequestStatusUpdateResult updateEventRequestStatus(Long userId,
+                                                                    Long eventId,
+                                                                    EventRequestStatusUpdateRequest eventRequestStatusUpdateRequest) {
         Event event = eventRepository.getEventsByIdAndInitiatorId(eventId, userId);
         if (event == null) {
             throw new NotFoundException("The required object was not found.");
@@ -193,198 +210,128 @@ public class EventServiceImpl implements EventService {
         }
         Status status = Status.valueOf(eventRequestStatusUpdateRequest.getStatus());
 
-        List<ParticipationRequest> list = participationRepository.getParticipationRequestByIdIn(eventRequestStatusUpdateRequest.getRequestIds());
-
-        List<ParticipationRequest> listPending = new ArrayList<>();
-        List<ParticipationRequest> listRejected = new ArrayList<>();
-        List<ParticipationRequest> listOld = new ArrayList<>();
-        List<ParticipationRequestDto> listDto = new ArrayList<>();
-        List<ParticipationRequestDto> listDtoReject = new ArrayList<>();
-
-
         if (event.getParticipantLimit() == 0 && !event.getRequestModeration()) {
-            return new EventRequestStatusUpdateResult(listDto, listDtoReject);
-        } else if (event.getParticipantLimit() > 0 && !event.getRequestModeration()) {
-            for (ParticipationRequest participationRequest : list) {
-                if (!participationRequest.getStatus().equals(Status.PENDING)) {
-                    throw new StatusPerticipationRequestException("The status Request NOT PENDING");
-                }
-                if (status.equals(Status.CONFIRMED)) {
-                    listOld.add(participationRequest);
-
-                    participationRequest.setStatus(Status.CONFIRMED);
-                    listPending.add(participationRequest);
-                    event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-                    participationRepository.saveAndFlush(participationRequest);
-
-                    if (Long.valueOf(event.getParticipantLimit()).equals(event.getConfirmedRequests())) {
-                        list.removeAll(listOld);
-                        if (list.size() != 0) {
-                            listDto = listPending.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-                            listDtoReject = list.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-                            return new EventRequestStatusUpdateResult(listDto, listDtoReject);
-                        } else {
-                            listDto = listPending.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-                            return new EventRequestStatusUpdateResult(listDto, new ArrayList<>());
-                        }
-                    }
-                } else {
-                    participationRequest.setStatus(Status.REJECTED);
-                    listRejected.add(participationRequest);
-                    participationRepository.saveAndFlush(participationRequest);
-                    listDtoReject = list.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-                    return new EventRequestStatusUpdateResult(new ArrayList<>(), listDtoReject);
-                }
+            return new EventRequestStatusUpdateResult(new ArrayList<>(), new ArrayList<>());
+        }
+
+        List<ParticipationRequest> list = participationRepository.getParticipationRequestByIdIn(eventRequestStatusUpdateRequest.getRequestIds());
+        // Заявки с неизвестными id не пропускаем молча
+        if (list.size() != new HashSet<>(eventRequestStatusUpdateRequest.getRequestIds()).size()) {
+            throw new NotFoundException("The required object was not found.");
+        }
+        list.sort(Comparator.comparing(ParticipationRequest::getId));
+        for (ParticipationRequest participationRequest : list) {
+            if (!participationRequest.getEvent().equals(eventId)) {
+                throw new NotFoundException("The required object was not found.");
+            }
+            if (!participationRequest.getStatus().equals(Status.PENDING)) {
+                throw new StatusPerticipationRequestException("The status Request NOT PENDING");
             }
-            listDto = listPending.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-            return new EventRequestStatusUpdateResult(listDto, new ArrayList<>());
-        } else if (event.getParticipantLimit() > 0 && event.getRequestModeration()) {
-            for (ParticipationRequest participationRequest : list) {
-                if (!participationRequest.getStatus().equals(Status.PENDING)) {
-                    throw new StatusPerticipationRequestException("The status Request NOT PENDING");
-                }
-                if (status.equals(Status.CONFIRMED)) {
-                    listOld.add(participationRequest);
-
-                    participationRequest.setStatus(Status.CONFIRMED);
-                    listPending.add(participationRequest);
-                    event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-                    participationRepository.saveAndFlush(participationRequest);
-
-                    if (Long.valueOf(event.getParticipantLimit()).equals(event.getConfirmedRequests())) {
-                        list.removeAll(listOld);
-                        if (list.size() != 0) {
-                            listDto = listPending.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-                            listDtoReject = list.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-                            return new EventRequestStatusUpdateResult(listDto, listDtoReject);
-                        } else {
-                            listDto = listPending.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-                            return new EventRequestStatusUpdateResult(listDto, new ArrayList<>());
-                        }
-                    }
-                } else {
-                    participationRequest.setStatus(Status.REJECTED);
-                    listRejected.add(participationRequest);
-                    participationRepository.saveAndFlush(participationRequest);
-                    listDtoReject = list.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-                    return new EventRequestStatusUpdateResult(new ArrayList<>(), listDtoReject);
-                }
+        }
+
+        // Подтверждаем сколько помещается в лимит, остальные заявки отклоняем
+        int confirmCount = 0;
+        if (status.equals(Status.CONFIRMED)) {
+            long free = event.getParticipantLimit() == 0
+                    ? list.size()
+                    : event.getParticipantLimit() - event.getConfirmedRequests();
+            confirmCount = (int) Math.min(list.size(), Math.max(free, 0));
+            if (confirmCount > 0 && eventRepository.addConfirmedRequests(eventId, confirmCount, event.getVersion()) == 0) {
+                // Событие успели изменить параллельно - повторяем транзакцию со свежей версией
+                throw new OptimisticLockingFailureException("Confirmed requests of event " + eventId + " changed concurrently");
             }
         }
-        listDto = listPending.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
-        return new EventRequestStatusUpdateResult(listDto, new ArrayList<>());
 
+        List<ParticipationRequest> confirmed = list.subList(0, confirmCount);
+        List<ParticipationRequest> rejected = list.subList(confirmCount, list.size());
+        List<ParticipationRequestDto> listDto = toParticipationRequestDtos(confirmed, Status.CONFIRMED);
+        List<ParticipationRequestDto> listDtoReject = toParticipationRequestDtos(rejected, Status.REJECTED);
+
+        updatePendingStatus(confirmed, eventId, Status.CONFIRMED);
+        updatePendingStatus(rejected, eventId, Status.REJECTED);
+
+        return new EventRequestStatusUpdateResult(listDto, listDtoReject);
     }
 
+    private void updatePendingStatus(List<ParticipationRequest> requests, Long eventId, Status status) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        List<Long> ids = requests.stream().map(ParticipationRequest::getId).collect(Collectors.toList());
+        if (participationRepository.updatePendingStatus(ids, eventId, status) != ids.size()) {
+            throw new OptimisticLockingFailureException("Participation requests of event " + eventId + " changed concurrently");
+        }
+    }
+
+    private static List<ParticipationRequestDto> toParticipationRequestDtos(List<ParticipationRequest> requests, Status status) {
+        return requests.stream()
+                .map(ParticipationMapper::toParticipationRequestDto)
+                .peek(dto -> dto.setStatus(status.toString()))
+                .collect(Collectors.toList());
+    }
 
     @Transactional
     @Override
     public List<EventFullDto> getEventsAdmin(List<Long> users, List<String> states, List<Long> categories,
                                              String rangeStart, String rangeEnd, Integer from, Integer size) {
 
-        List<EventFullDto> list = null;
-        Integer pageNumber = from / size;
         List<State> stateEnum = null;
         if (states != null) {
             stateEnum = states.stream().map((s) -> State.valueOf(s)).collect(Collectors.toList());
         }
-        Pageable pageable = PageRequest.of(pageNumber, size);
-        if (rangeStart == null && rangeEnd == null) {
-            if (users == null && states == null && categories == null) {
-                list = eventRepository.findAll(pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-            } else if (users == null && states == null && categories != null) {
-                list = eventRepository.getEventsByCategoryIdIn(categories, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users == null && states != null && categories == null) {
-                list = eventRepository.getEventsByStateIn(stateEnum, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users != null && states == null && categories == null) {
-                list = eventRepository.getEventsByInitiatorIdIn(users, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users == null && states != null && categories != null) {
-                list = eventRepository.getEventsByCategoryIdInAndStateIn(categories, stateEnum, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users != null && states != null && categories == null) {
-                list = eventRepository.getEventsByInitiatorIdInAndStateIn(users, stateEnum, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users != null && states == null && categories != null) {
-                list = eventRepository.getEventsByInitiatorIdInAndCategoryIdIn(users, categories, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else {
-                list = eventRepository.getEventsByInitiatorIdInAndStateInAndCategoryIdIn(users, stateEnum, categories, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-            }
-        } else {
-            LocalDateTime start = LocalDateTime.parse(rangeStart, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            LocalDateTime end = LocalDateTime.parse(rangeEnd, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            if (start.isAfter(end)) {
-                throw new IllegalArgumentException();
-            }
-            if (users == null && states == null && categories == null) {
-                list = eventRepository.getEventsByEventDateAfterAndEventDateBefore(start, end, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users == null && states == null && categories != null) {
-                list = eventRepository.getEventsByCategoryIdInAndEventDateAfterAndEventDateBefore(
-                        categories, start, end, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users == null && states != null && categories == null) {
-                list = eventRepository.getEventsByStateInAndEventDateAfterAndEventDateBefore(
-                        stateEnum, start, end, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users != null && states == null && categories == null) {
-                list = eventRepository.getEventsByInitiatorIdInAndEventDateAfterAndEventDateBefore(
-                        users, start, end, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users == null && states != null && categories != null) {
-                list = eventRepository.getEventsByStateInAndCategoryIdInAndEventDateAfterAndEventDateBefore(
-                        stateEnum, categories, start, end, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users != null && states != null && categories == null) {
-                list = eventRepository.getEventsByInitiatorIdInAndStateInAndEventDateAfterAndEventDateBefore(
-                        users, stateEnum, start, end, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users != null && states == null && categories != null) {
-                list = eventRepository.getEventsByInitiatorIdInAndCategoryIdInAndEventDateAfterAndEventDateBefore(
-                        users, categories, start, end, pageable).stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
-
-            } else if (users != null && states != null && categories != null)
-                list = eventRepository.getEventsByInitiatorIdInAndStateInAndCategoryIdInAndEventDateAfterAndEventDateBefore(
-                        users, stateEnum, categories, start, end, pageable)
-                        .stream()
-                        .map((event) -> EventMapper.toEventFullDto(event))
-                        .collect(Collectors.toList());
+        LocalDateTime start = rangeStart == null ? null : LocalDateTime.parse(rangeStart, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        LocalDateTime end = rangeEnd == null ? null : LocalDateTime.parse(rangeEnd, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new IllegalArgumentException();
         }
 
-        return list;
+        Specification<Event> specification = Specification.where(EventSpecifications.isInitiator(users))
+                .and(EventSpecifications.isStateIn(stateEnum))
+                .and(EventSpecifications.isCategory(categories))
+                .and(EventSpecifications.isEventDateAfter(start))
+                .and(EventSpecifications.isEventDateBefore(end));
+
+        // Сортировка по id, чтобы страницы OFFSET не пересекались
+        return eventRepository.findEvents(specification, PageRequest.of(from / size, size, Sort.by("id"))).stream()
+                .map((event) -> EventMapper.toEventFullDto(event))
+                .collect(Collectors.toList());
+    }
+
+    // Keyset-пагинация по (eventDate, id): вместо OFFSET страница начинается сразу после позиции из курсора
+    @Transactional
+    @Override
+    public CursorPage<EventFullDto> getEventsAdmin(List<Long> users, List<String> states, List<Long> categories,
+                                                   String rangeStart, String rangeEnd, String cursor, Integer size) {
+        PageCursor pageCursor = PageCursor.decode(cursor, PageCursor.Kind.EVENT);
+        List<State> stateEnum = null;
+        if (states != null) {
+            stateEnum = states.stream().map((s) -> State.valueOf(s)).collect(Collectors.toList());
+        }
+        LocalDateTime start = rangeStart == null ? null : LocalDateTime.parse(rangeStart, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        LocalDateTime end = rangeEnd == null ? null : LocalDateTime.parse(rangeEnd, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new IllegalArgumentException();
+        }
+
+        Specification<Event> specification = Specification.where(EventSpecifications.isInitiator(users))
+                .and(EventSpecifications.isStateIn(stateEnum))
+                .and(EventSpecifications.isCategory(categories))
+                .and(EventSpecifications.isEventDateAfter(start))
+                .and(EventSpecifications.isEventDateBefore(end))
+                .and(pageCursor == null ? null : EventSpecifications.isAfter(pageCursor.getTime(), pageCursor.getId()));
+
+        // Берём на одну строку больше, чтобы понять, есть ли следующая страница
+        List<Event> events = eventRepository.findEvents(specification, Sort.by("eventDate", "id"), size + 1);
+
+        String nextCursor = null;
+        if (events.size() > size) {
+            events = events.subList(0, size);
+            Event last = events.get(size - 1);
+            nextCursor = PageCursor.encode(PageCursor.Kind.EVENT, last.getEventDate(), last.getId());
+        }
+        return new CursorPage<>(events.stream()
+                .map((event) -> EventMapper.toEventFullDto(event))
+                .collect(Collectors.toList()), nextCursor);
     }
 
     @Transactional
@@ -453,7 +400,7 @@ public class EventServiceImpl implements EventService {
                                                        LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
                                                        String sort, Integer from, Integer size) {
         Integer pageNumber = from / size;
-        Pageable pageable = PageRequest.of(pageNumber, size);
+        Pageable pageable = PageRequest.of(pageNumber, size, getSortPublic(sort));
         LocalDateTime timeNow = LocalDateTime.now();
 
         if (rangeStart != null && rangeEnd != null) {
@@ -462,830 +409,14 @@ public class EventServiceImpl implements EventService {
             }
         }
 
-        List<Event> list;
-        if (text != null) {
-            text = "%" + text + "%";
-        }
-        if (paid != null) {
-            if (rangeStart == null && rangeEnd == null) {
-                if (sort != null && sort.equals("EVENT_DATE")) {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodSortEventDateAvailable(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodSortEventDate(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    pageable);
-                        }
-                    }
-                } else if (sort != null && sort.equals("VIEWS")) {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodSortViewsAvailable(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodSortViews(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    pageable);
-                        }
-
-                    }
-                } else {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodAvailable(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else {
-                            list = eventRepository.getEventsNoPeriod(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    timeNow,
-                                    pageable);
-                        }
-                    }
-                }
-
-            } else {
-//                if (rangeStart.isAfter(rangeEnd)) {
-//                    throw new IllegalArgumentException("Time start" + rangeStart + " after end " + rangeEnd);
-//                }
-                if (sort != null && sort.equals("EVENT_DATE")) {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodSortEventDateAvailable(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodSortEventDate(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    }
-                } else if (sort != null && sort.equals("VIEWS")) {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodSortViewsAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodSortViewsAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodSortViewsAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodSortViewsAvailable(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodSortViewsCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodSortViewsCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodSortViewsText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodSortViews(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    }
-                } else {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodAvailable(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodText(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else {
-                            list = eventRepository.getEventsPeriod(
-                                    State.PUBLISHED.toString(),
-                                    paid,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    }
-                }
-            }
-        } else {
-            if (rangeStart == null && rangeEnd == null) {
-                if (sort != null && sort.equals("EVENT_DATE")) {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodSortEventDateAvailable(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortEventDateText(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodSortEventDate(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    pageable);
-                        }
-                    }
-                } else if (sort != null && sort.equals("VIEWS")) {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodSortViewsAvailable(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodSortViewsText(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodSortViews(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    pageable);
-                        }
-
-                    }
-                } else {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsNoPeriodAvailable(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsNoPeriodCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    text,
-                                    pageable);
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsNoPeriodCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    timeNow,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsNoPeriodText(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    text,
-                                    pageable);
-
-                        } else {
-                            list = eventRepository.getEventsNoPeriod(
-                                    State.PUBLISHED.toString(),
-                                    timeNow,
-                                    pageable);
-                        }
-                    }
-                }
-
-            } else {
-                if (rangeStart.isAfter(rangeEnd)) {
-                    throw new IllegalArgumentException("Time start" + rangeStart + " after end " + rangeEnd);
-                }
-                if (sort != null && sort.equals("EVENT_DATE")) {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodSortEventDateAvailable(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodSortEventDateText(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodSortEventDate(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    }
-                } else if (sort != null && sort.equals("VIEWS")) {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodSortViewsAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodSortViewsAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodSortViewsAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodSortViewsAvailable(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodSortViewsCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodSortViewsCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodSortViewsText(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodSortViews(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    }
-                } else {
-                    if (onlyAvailable) {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodAvailableCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodAvailableCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodAvailableText(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-                        } else {
-                            list = eventRepository.getEventsPeriodAvailable(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-
-                    } else {
-                        if (categories != null && text != null) {
-                            list = eventRepository.getEventsPeriodCategoryText(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else if (text == null && categories != null) {
-                            list = eventRepository.getEventsPeriodCategory(
-                                    State.PUBLISHED.toString(),
-                                    categories,
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-
-                        } else if (categories == null && text != null) {
-                            list = eventRepository.getEventsPeriodText(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    text,
-                                    pageable);
-
-                        } else {
-                            list = eventRepository.getEventsPeriod(
-                                    State.PUBLISHED.toString(),
-                                    rangeStart,
-                                    rangeEnd,
-                                    pageable);
-                        }
-                    }
-                }
-            }
-        }
+        Specification<Event> specification = Specification.where(EventSpecifications.isState(State.PUBLISHED))
+                .and(EventSpecifications.isCategory(categories))
+                .and(EventSpecifications.isPaid(paid))
+                .and(EventSpecifications.isPeriod(rangeStart, rangeEnd, timeNow))
+                .and(EventSpecifications.isOnlyAvailable(onlyAvailable))
+                .and(EventSpecifications.isText(text));
 
+        List<EventShortDto> list = eventRepository.searchWithParametrs(specification, pageable);
 
         EndpointHitDto endpointHitDto = new EndpointHitDto(null,
                 "main-service",
@@ -1293,19 +424,22 @@ public class EventServiceImpl implements EventService {
                 request.getRemoteAddr(),
                 timeNow.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
-        try {
-            statsClient.addRequest(request.getRemoteAddr(), endpointHitDto);
-        } catch (RuntimeException e) {
-            throw new IllegalArgumentException(e.getLocalizedMessage());
-        }
+        statsHitBuffer.add(endpointHitDto);
 
-        if (list.size() == 0) {
-            return new ArrayList<>();
+        for (EventShortDto eventShortDto : list) {
+            eventShortDto.setViews(eventViewCounter.getViews(eventShortDto.getId(), eventShortDto.getViews()));
         }
+        return list;
+    }
 
-        List<EventShortDto> listShortDto = list.stream().map((event) -> EventMapper.toEventShortDto(event))
-                .collect(Collectors.toList());
-        return listShortDto;
+    private Sort getSortPublic(String sort) {
+        if ("EVENT_DATE".equals(sort)) {
+            return Sort.by(Sort.Direction.DESC, "eventDate");
+        }
+        if ("VIEWS".equals(sort)) {
+            return Sort.by(Sort.Direction.DESC, "views");
+        }
+        return Sort.unsorted();
     }
 
     @Transactional
@@ -1315,15 +449,9 @@ public class EventServiceImpl implements EventService {
         if (event == null) {
             throw new NotFoundException("The required object was not found.");
         }
-        String timeStart = event.getCreatedOn().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
         String timeNow = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        String[] uris = {request.getRequestURI()};
-
-        ResponseEntity<Object> response = statsClient.getStats(request.getRequestURI(), timeStart, timeNow, uris, true);
-        List<ViewStats> resp = (List<ViewStats>) response.getBody();
-        if (resp.size() == 0) {
-            event.setViews(event.getViews() + 1);
-            eventRepository.save(event);
+        if (isUniqueView(request, event, timeNow)) {
+            eventViewCounter.increment(eventId);
         }
 
         EndpointHitDto endpointHitDto = new EndpointHitDto(null,
@@ -1332,8 +460,28 @@ public class EventServiceImpl implements EventService {
                 request.getRemoteAddr(),
                 timeNow);
 
-        statsClient.addRequest(request.getRemoteAddr(), endpointHitDto);
+        statsHitBuffer.add(endpointHitDto);
 
-        return EventMapper.toEventFullDto(event);
+        EventFullDto eventFullDto = EventMapper.toEventFullDto(event);
+        eventFullDto.setViews(eventViewCounter.getViews(eventId, event.getViews()));
+        return eventFullDto;
+    }
+
+    // Просмотр засчитывается, только если статистика ещё не знает обращений к URI события (unique=true).
+    // Уже засчитанный просмотр означает такое обращение, поэтому статистику тогда не спрашиваем:
+    // заодно не считаем дважды просмотры, чьи хиты ещё лежат в буфере
+    private boolean isUniqueView(HttpServletRequest request, Event event, String timeNow) {
+        if (eventViewCounter.getViews(event.getId(), event.getViews()) > 0) {
+            return false;
+        }
+        String timeStart = event.getCreatedOn().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        String[] uris = {request.getRequestURI()};
+        try {
+            return statsClient.getViewStats(request.getRemoteAddr(), timeStart, timeNow, uris, true).isEmpty();
+        } catch (RuntimeException e) {
+            // Без статистики уникальность не проверить - просмотр не засчитываем
+            log.debug("Stats lookup for event {} failed: {}", event.getId(), e.getMessage());
+            return false;
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,105 +3,109 @@ package ru.practicum.main.event.service;
 import org.springframework.data.jpa.domain.Specification;
 import ru.practicum.main.event.model.Event;
 import ru.practicum.main.event.model.State;
+import ru.practicum.main.event.repository.dialect.EventSearchFunctions;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 public class EventSpecifications {
+    private EventSpecifications() {
+    }
+
     public static Specification<Event> isState(State state) {
         return (root, query, cb) -> cb.equal(root.get("state"), state);
     }
 
-    public static Specification<Event> isPaid(Boolean paid) {
-        if (paid == null) {
+    public static Specification<Event> isStateIn(List<State> states) {
+        if (states == null) {
             return null;
         }
-        return (root, query, cb) -> cb.equal(root.get("paid"), paid);
+        return (root, query, cb) -> root.get("state").in(states);
     }
 
-    public static Specification<Event> periodTimeStart(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime timeNow) {
-
-        if (startTime == null || endTime == null) {
-            return (root, query, cb) -> {
-                return cb.greaterThan(root.<LocalDateTime>get("eventDate").as(LocalDateTime.class), timeNow);
-            };
-        }
-        return (root, query, cb) -> {
-            // Expression<Timestamp> localDateTimeExpression = cb.literal(Timestamp.valueOf(startTime));
-            return cb.and(cb.greaterThan(root.<LocalDateTime>get("eventDate").as(LocalDateTime.class), startTime));
-        };
-    }
-
-    public static Specification<Event> periodTimeEnd(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime timeNow) {
-        if (startTime == null || endTime == null) {
-            return (root, query, cb) -> {
-                return cb.greaterThan(root.<LocalDateTime>get("eventDate").as(LocalDateTime.class), timeNow);
-            };
+    public static Specification<Event> isInitiator(List<Long> users) {
+        if (users == null) {
+            return null;
         }
-        return (root, query, cb) -> {
-            //Expression<Timestamp> localDateTimeExpression = cb.literal(Timestamp.valueOf(endTime));
-            return cb.lessThan(root.<LocalDateTime>get("eventDate").as(LocalDateTime.class), endTime);
-        };
+        return (root, query, cb) -> root.get("initiator").get("id").in(users);
     }
 
-    public static Specification<Event> betweenNullTimeNow(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime timeNow) {
-        if (startTime != null || endTime != null) {
+    public static Specification<Event> isPaid(Boolean paid) {
+        if (paid == null) {
             return null;
         }
-        return (root, query, cb) -> cb.greaterThan(root.get("eventDate"), timeNow);
+        return (root, query, cb) -> cb.equal(root.get("paid"), paid);
     }
 
-    public static Specification<Event> betweenTimeStartEnd(LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null) {
+    public static Specification<Event> isCategory(List<Long> categories) {
+        if (categories == null) {
             return null;
         }
-        return (root, query, cb) -> cb.between(root.get("eventDate"), startTime, endTime);
+        return (root, query, cb) -> root.get("category").get("id").in(categories);
     }
 
-    public static Specification<Event> isOnlyAvailableEqualsParticipantLimitAndConfirmedRequest(
-            boolean onlyAvailable) {
-        if (!onlyAvailable) {
-            return null;
+    // Без диапазона отдаём только будущие события, иначе границы включительные
+    public static Specification<Event> isPeriod(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime timeNow) {
+        if (startTime == null && endTime == null) {
+            return (root, query, cb) -> cb.greaterThan(root.get("eventDate"), timeNow);
+        }
+        if (endTime == null) {
+            return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("eventDate"), startTime);
+        }
+        if (startTime == null) {
+            return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("eventDate"), endTime);
         }
-        return (root, query, cb) -> cb.equal(root.get("participantLimit"), 0);
+        return (root, query, cb) -> cb.between(root.get("eventDate"), startTime, endTime);
     }
 
-    public static Specification<Event> isOnlyAvailableParticipantLimitGreaterConfirmedRequest(
-            boolean onlyAvailable) {
-        if (!onlyAvailable) {
+    // Границы как у админского поиска без курсора: строгие, каждая необязательна
+    public static Specification<Event> isEventDateAfter(LocalDateTime startTime) {
+        if (startTime == null) {
             return null;
         }
-        return (root, query, cb) -> cb.greaterThan(root.get("participantLimit"), root.get("confirmedRequests"));
+        return (root, query, cb) -> cb.greaterThan(root.get("eventDate"), startTime);
     }
 
-    public static Specification<Event> isSort(String sort) {
-        if (sort == null) {
+    public static Specification<Event> isEventDateBefore(LocalDateTime endTime) {
+        if (endTime == null) {
             return null;
         }
-        if (sort.equals("VIEWS")) {
-            return (root, query, cb) -> cb.like(root.get("views"), sort);
-        }
-        return (root, query, cb) -> cb.like(root.get("eventDate"), sort);
+        return (root, query, cb) -> cb.lessThan(root.get("eventDate"), endTime);
     }
 
-    public static Specification<Event> isCategory(List<Long> categories) {
-        if (categories == null) {
+    // Условие keyset-пагинации: строки строго после (eventDate, id) из курсора.
+    // Отдельная нижняя граница eventDate >= даёт диапазон по индексу (event_date, id), одно OR его не даёт
+    public static Specification<Event> isAfter(LocalDateTime eventDate, Long id) {
+        if (eventDate == null) {
             return null;
         }
-        return (root, query, cb) -> root.get("category").in(categories);
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("eventDate"), eventDate),
+                cb.or(cb.greaterThan(root.get("eventDate"), eventDate), cb.greaterThan(root.get("id"), id)));
     }
 
-    public static Specification<Event> isTextAnnotation(String text) {
-        if (text == null) {
+    public static Specification<Event> isOnlyAvailable(Boolean onlyAvailable) {
+        if (onlyAvailable == null || !onlyAvailable) {
             return null;
         }
-        return (root, query, cb) -> cb.like(cb.lower(root.get("annotation")), ("%" + text + "%").toLowerCase());
+        return (root, query, cb) -> cb.or(
+                cb.equal(root.get("participantLimit"), 0),
+                cb.greaterThan(root.get("participantLimit"), root.get("confirmedRequests")));
     }
 
-    public static Specification<Event> isTextDescription(String text) {
+    // Полнотекстовый поиск (см. EventPostgreSQLDialect); без явной сортировки результаты идут по релевантности,
+    // при равной релевантности - по id, чтобы страницы не пересекались
+    public static Specification<Event> isText(String text) {
         if (text == null) {
             return null;
         }
-        return (root, query, cb) -> cb.like(cb.lower(root.get("description")), ("%" + text + "%").toLowerCase());
+        return (root, query, cb) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                query.orderBy(cb.desc(cb.function(EventSearchFunctions.TEXT_RANK, Double.class,
+                        root.get("annotation"), root.get("description"), cb.literal(text))), cb.asc(root.get("id")));
+            }
+            return cb.isTrue(cb.function(EventSearchFunctions.TEXT_MATCH, Boolean.class,
+                    root.get("annotation"), root.get("description"), cb.literal(text)));
+        };
     }
-}
\ No newline at end of file
+}
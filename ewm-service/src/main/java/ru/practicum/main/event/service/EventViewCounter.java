@@ -0,0 +1,97 @@
+package ru.practicum.main.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class EventViewCounter {
+    private static final String UPDATE_VIEWS = "UPDATE events SET views = views + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EventViewCounter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void increment(Long eventId) {
+        add(eventId, 1);
+    }
+
+    // Если flush успел вытеснить счётчик, просмотры с него забирает sumThenReset (атомарно по ячейкам)
+    // и переносит в новый, поэтому каждый просмотр учитывается ровно один раз
+    private void add(Long eventId, long views) {
+        while (views > 0) {
+            LongAdder adder = pending.computeIfAbsent(eventId, id -> new LongAdder());
+            adder.add(views);
+            if (pending.get(eventId) == adder) {
+                return;
+            }
+            views = adder.sumThenReset();
+        }
+    }
+
+    public long getPending(Long eventId) {
+        LongAdder adder = pending.get(eventId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public Long getViews(Long eventId, Long persistedViews) {
+        return (persistedViews == null ? 0 : persistedViews) + getPending(eventId);
+    }
+
+    @Scheduled(fixedDelayString = "${ewm.views.flush-interval-ms:5000}")
+    public void flush() {
+        // TreeMap: одинаковый порядок обновления строк у всех экземпляров сервиса
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.put(entry.getKey(), delta);
+            } else {
+                // Событие не просматривали целый интервал
+                evict(entry.getKey(), entry.getValue());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            args.add(new Object[]{delta.getValue(), delta.getKey()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_VIEWS, args);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush views of {} events, will retry: {}", deltas.size(), e.getMessage());
+            deltas.forEach(this::add);
+        }
+    }
+
+    private void evict(Long eventId, LongAdder adder) {
+        pending.computeIfPresent(eventId, (id, current) -> current == adder && current.sum() == 0 ? null : current);
+        if (pending.get(eventId) != adder) {
+            // Просмотры, попавшие в счётчик между проверкой и удалением
+            add(eventId, adder.sumThenReset());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.main.exception;
 
 import io.micrometer.core.lang.NonNull;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -196,4 +197,16 @@ public class ErrorHandler extends ResponseEntityExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiError handleThrowable(final OptimisticLockingFailureException e) throws IOException {
+        return ApiError.builder()
+                .errors(Collections.singletonList(error(e)))
+                .status(HttpStatus.CONFLICT)
+                .reason("The object was modified concurrently")
+                .message(e.getLocalizedMessage())
+                .timestamp((LocalDateTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
+                .build();
+    }
+
 }
\ No newline at end of file
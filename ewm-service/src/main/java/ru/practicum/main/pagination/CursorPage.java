@@ -0,0 +1,15 @@
+package ru.practicum.main.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+
+    // null, если это последняя страница
+    private String nextCursor;
+}
@@ -0,0 +1,78 @@
+package ru.practicum.main.pagination;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Непрозрачный курсор для keyset-пагинации: вид списка и позиция последней отданной строки (время и id).
+ * Клиент получает его в заголовке X-Next-Cursor и передаёт обратно в параметре cursor;
+ * курсор другого списка отклоняется.
+ */
+@Getter
+public class PageCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime time;
+    private final Long id;
+
+    private PageCursor(LocalDateTime time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public static String encode(Kind kind, Long id) {
+        return encode(kind, null, id);
+    }
+
+    public static String encode(Kind kind, LocalDateTime time, Long id) {
+        if (kind.timed != (time != null)) {
+            throw new IllegalArgumentException("Cursor of " + kind + " requires " + (kind.timed ? "time" : "no time"));
+        }
+        String value = kind.prefix + SEPARATOR + (time == null ? "" : time + SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null для пустого курсора (первая страница)
+     */
+    public static PageCursor decode(String cursor, Kind kind) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(Pattern.quote(SEPARATOR), -1);
+            if (!parts[0].equals(kind.prefix) || parts.length != (kind.timed ? 3 : 2)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            if (!kind.timed) {
+                return new PageCursor(null, Long.parseLong(parts[1]));
+            }
+            return new PageCursor(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Списки с keyset-пагинацией; timed - позиция включает время сортировки
+    public enum Kind {
+        EVENT("event", true),
+        USER("user", false),
+        COMMENT("comment", true);
+
+        private final String prefix;
+        private final boolean timed;
+
+        Kind(String prefix, boolean timed) {
+            this.prefix = prefix;
+            this.timed = timed;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Entity
@@ -45,4 +46,7 @@ public class ParticipationRequest {
 
     @Enumerated(EnumType.STRING)
     private Status status;
+
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package ru.practicum.main.participation.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.main.event.model.Status;
 import ru.practicum.main.participation.model.ParticipationRequest;
 
 import java.util.List;
@@ -19,4 +23,14 @@ public interface ParticipationRepository extends JpaRepository<ParticipationRequ
     List<ParticipationRequest> getParticipationRequestsByEvent(Long eventId);
 
     List<ParticipationRequest> getParticipationRequestsByRequester(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Переводит заявки события из PENDING в status одним UPDATE.
+     *
+     * @return число изменённых заявок; меньше ids.size(), если часть заявок уже не в PENDING
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ParticipationRequest pr SET pr.status = :status, pr.version = pr.version + 1 " +
+            "WHERE pr.id IN :ids AND pr.event = :eventId AND pr.status = ru.practicum.main.event.model.Status.PENDING")
+    int updatePendingStatus(@Param("ids") List<Long> ids, @Param("eventId") Long eventId, @Param("status") Status status);
+}
@@ -2,6 +2,7 @@ package ru.practicum.main.participation.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.main.event.model.Event;
@@ -15,6 +16,7 @@ import ru.practicum.main.participation.ParticipationMapper;
 import ru.practicum.main.participation.dto.ParticipationRequestDto;
 import ru.practicum.main.participation.model.ParticipationRequest;
 import ru.practicum.main.participation.repository.ParticipationRepository;
+import ru.practicum.main.transaction.OptimisticRetryExecutor;
 import ru.practicum.main.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
@@ -28,12 +30,15 @@ public class ParticipationServiceImpl implements ParticipationService {
     private final ParticipationRepository participationRepository;
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
 
     @Autowired
-    public ParticipationServiceImpl(ParticipationRepository participationRepository, EventRepository eventRepository, UserRepository userRepository) {
+    public ParticipationServiceImpl(ParticipationRepository participationRepository, EventRepository eventRepository, UserRepository userRepository,
+                                    OptimisticRetryExecutor optimisticRetryExecutor) {
         this.participationRepository = participationRepository;
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
     }
 
     @Transactional
@@ -55,9 +60,17 @@ public class ParticipationServiceImpl implements ParticipationService {
         return list.stream().map((pr) -> ParticipationMapper.toParticipationRequestDto(pr)).collect(Collectors.toList());
     }
 
-    @Transactional
     @Override
     public ParticipationRequestDto addParticipationRequestPrivate(Long userId, Long eventId) {
+        return optimisticRetryExecutor.execute(() -> addParticipationRequest(userId, eventId));
+    }
+
+    @Override
+    public ParticipationRequestDto updateRejectedParticipationRequestPrivate(Long userId, Long requestId) {
+        return optimisticRetryExecutor.execute(() -> cancelParticipationRequest(userId, requestId));
+    }
+
+    private ParticipationRequestDto addParticipationRequest(Long userId, Long eventId) {
         Event event = eventRepository.getEventsById(eventId);
         List<ParticipationRequest> participationRequestList = participationRepository.getParticipationRequestsByRequesterAndEvent(userId, eventId);
 
@@ -70,12 +83,13 @@ public class ParticipationServiceImpl implements ParticipationService {
                 .build();
 
         if (!event.getRequestModeration() || event.getParticipantLimit() == 0) {
+            // Лимит уже проверен по прочитанному событию, поэтому 0 строк означает, что его версия устарела
+            if (eventRepository.addConfirmedRequests(eventId, 1, event.getVersion()) == 0) {
+                throw new OptimisticLockingFailureException("Event " + eventId + " changed concurrently");
+            }
             participationRequest.setStatus(Status.CONFIRMED);
-            event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-            eventRepository.save(event);
         } else {
             participationRequest.setStatus(Status.PENDING);
-            eventRepository.save(event);
         }
 
         ParticipationRequest newParticipationRequest = participationRepository.save(participationRequest);
@@ -87,9 +101,7 @@ public class ParticipationServiceImpl implements ParticipationService {
         return participationRequestDto;
     }
 
-    @Transactional
-    @Override
-    public ParticipationRequestDto updateRejectedParticipationRequestPrivate(Long userId, Long requestId) {
+    private ParticipationRequestDto cancelParticipationRequest(Long userId, Long requestId) {
 
         ParticipationRequest participationRequest = participationRepository.getParticipationRequestByIdAndRequester(requestId, userId);
         if (participationRequest == null) {
@@ -99,8 +111,9 @@ public class ParticipationServiceImpl implements ParticipationService {
             participationRequest.setStatus(Status.CANCELED);
         } else if (participationRequest.getStatus().equals(Status.CONFIRMED)) {
             Event event = eventRepository.getEventsById(participationRequest.getEvent());
-            event.setConfirmedRequests(event.getConfirmedRequests() - 1);
-            eventRepository.save(event);
+            if (eventRepository.removeConfirmedRequests(event.getId(), 1, event.getVersion()) == 0) {
+                throw new OptimisticLockingFailureException("Event " + event.getId() + " changed concurrently");
+            }
             participationRequest.setStatus(Status.CANCELED);
         }
 
@@ -0,0 +1,60 @@
+package ru.practicum.main.transaction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет действие в отдельной транзакции и повторяет его, если транзакцию откатил конфликт версий
+ * (@Version). После max-attempts попыток исключение уходит в ErrorHandler и превращается в 409.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    @Autowired
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   @Value("${ewm.optimistic-retry.max-attempts:3}") int maxAttempts,
+                                   @Value("${ewm.optimistic-retry.backoff-ms:10}") long backoffMs) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Optimistic lock conflict, attempt {} of {}: {}", attempt, maxAttempts, e.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    // Случайная пауза, чтобы столкнувшиеся транзакции не повторялись синхронно
+    private void pause(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying", e);
+        }
+    }
+}
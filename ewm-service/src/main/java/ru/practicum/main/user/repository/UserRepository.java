@@ -12,6 +12,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> getUsersByIdIn(List<Long> ids, Pageable pageable);
 
+    List<User> getUsersByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<User> getUsersByIdInAndIdGreaterThanOrderByIdAsc(List<Long> ids, Long id, Pageable pageable);
+
     void removeUserById(Long userId);
 
     User getUserById(Long userId);
@@ -1,5 +1,6 @@
 package ru.practicum.main.user.service;
 
+import ru.practicum.main.pagination.CursorPage;
 import ru.practicum.main.user.dto.NewUserRequest;
 import ru.practicum.main.user.dto.UserDto;
 
@@ -10,5 +11,7 @@ public interface UserService {
 
     List<UserDto> getUsersAdmin(List<Long> ids, Integer from, Integer size);
 
+    CursorPage<UserDto> getUsersAdmin(List<Long> ids, String cursor, Integer size);
+
     void deleteUserAdmin(Long id);
 }
@@ -9,6 +9,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.main.exception.DuplicateEmailException;
 import ru.practicum.main.exception.NotFoundException;
+import ru.practicum.main.pagination.CursorPage;
+import ru.practicum.main.pagination.PageCursor;
 import ru.practicum.main.user.UserMapper;
 import ru.practicum.main.user.dto.NewUserRequest;
 import ru.practicum.main.user.dto.UserDto;
@@ -46,6 +48,32 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    // Keyset-пагинация по id: страница читается по первичному ключу без OFFSET
+    @Transactional
+    @Override
+    public CursorPage<UserDto> getUsersAdmin(List<Long> ids, String cursor, Integer size) {
+        PageCursor pageCursor = PageCursor.decode(cursor, PageCursor.Kind.USER);
+        Long afterId = pageCursor == null ? 0L : pageCursor.getId();
+        // Берём на одну строку больше, чтобы понять, есть ли следующая страница
+        Pageable pageable = PageRequest.of(0, size + 1);
+
+        List<User> users;
+        if (ids == null || ids.size() == 0) {
+            users = userRepository.getUsersByIdGreaterThanOrderByIdAsc(afterId, pageable);
+        } else {
+            users = userRepository.getUsersByIdInAndIdGreaterThanOrderByIdAsc(ids, afterId, pageable);
+        }
+
+        String nextCursor = null;
+        if (users.size() > size) {
+            users = users.subList(0, size);
+            nextCursor = PageCursor.encode(PageCursor.Kind.USER, users.get(size - 1).getId());
+        }
+        return new CursorPage<>(users.stream()
+                .map((user) -> UserMapper.toUserDto(user))
+                .collect(Collectors.toList()), nextCursor);
+    }
+
     @Transactional
     @Override
     public UserDto addUserAdmin(NewUserRequest newUserRequest) {
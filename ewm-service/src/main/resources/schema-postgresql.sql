@@ -0,0 +1,2 @@
+CREATE INDEX IF NOT EXISTS events_text_search_idx ON events
+    USING GIN (to_tsvector('simple', annotation || ' ' || description));
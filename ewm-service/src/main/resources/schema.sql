@@ -34,9 +34,14 @@ CREATE TABLE IF NOT EXISTS events (
     request_moderation boolean  NOT NULL,
     state         VARCHAR(100),
     title         VARCHAR(120)  NOT NULL,
-    views         BIGINT        NOT NULL
+    views         BIGINT        NOT NULL,
+    version       BIGINT        NOT NULL DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS events_state_event_date_idx ON events (state, event_date);
+CREATE INDEX IF NOT EXISTS events_category_id_idx ON events (category_id);
+CREATE INDEX IF NOT EXISTS events_event_date_id_idx ON events (event_date, id);
+
 CREATE TABLE IF NOT EXISTS compilations (
     id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     pinned        boolean       NOT NULL,
@@ -48,7 +53,8 @@ CREATE TABLE IF NOT EXISTS participations (
     created       TIMESTAMP     NOT NULL,
     event         BIGINT        NOT NULL REFERENCES events (id) ON DELETE CASCADE ON UPDATE CASCADE,
     requester     BIGINT        NOT NULL REFERENCES users (id) ON DELETE CASCADE ON UPDATE CASCADE,
-    status        VARCHAR(100)  NOT NULL
+    status        VARCHAR(100)  NOT NULL,
+    version       BIGINT        NOT NULL DEFAULT 0
 );
 
  CREATE TABLE IF NOT EXISTS comments (
@@ -59,6 +65,8 @@ CREATE TABLE IF NOT EXISTS participations (
     created      TIMESTAMP      NOT NULL
 );
 
+CREATE INDEX IF NOT EXISTS comments_event_id_created_id_idx ON comments (event_id, created, id);
+
 CREATE TABLE IF NOT EXISTS events_compilations (
     event_id       BIGINT        NOT NULL   REFERENCES events (id), --ON DELETE CASCADE ON UPDATE CASCADE,
     compilation_id BIGINT        NOT NULL   REFERENCES compilations (id), --ON DELETE CASCADE ON UPDATE CASCADE
@@ -0,0 +1,78 @@
+package ru.practicum.main;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Вставляет тестовые данные напрямую через JDBC, минуя сервисы и их проверки.
+ */
+public class TestData {
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestData(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long addUser() {
+        int n = SEQUENCE.incrementAndGet();
+        return insert("users", Map.of("name", "user" + n, "email", "user" + n + "@test.ru"));
+    }
+
+    public long addCategory() {
+        return insert("category", Map.of("name", "category" + SEQUENCE.incrementAndGet()));
+    }
+
+    // Опубликованное событие со своими категорией и локацией
+    public long addEvent(long initiatorId, int participantLimit, boolean requestModeration) {
+        long locationId = insert("locations", Map.of("lat", 55.75f, "lon", 37.62f));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return insert("events", Map.ofEntries(
+                Map.entry("annotation", "Test event annotation"),
+                Map.entry("category_id", addCategory()),
+                Map.entry("confirmed_requests", 0L),
+                Map.entry("created_on", now),
+                Map.entry("description", "Test event description"),
+                Map.entry("event_date", Timestamp.valueOf(LocalDateTime.now().plusDays(1))),
+                Map.entry("initiator_id", initiatorId),
+                Map.entry("location_id", locationId),
+                Map.entry("paid", false),
+                Map.entry("participant_limit", (long) participantLimit),
+                Map.entry("published_on", now),
+                Map.entry("request_moderation", requestModeration),
+                Map.entry("state", "PUBLISHED"),
+                Map.entry("title", "Test event " + SEQUENCE.incrementAndGet()),
+                Map.entry("views", 0L)));
+    }
+
+    public long addParticipation(long requesterId, long eventId) {
+        return insert("participations", Map.of(
+                "created", Timestamp.valueOf(LocalDateTime.now()),
+                "event", eventId,
+                "requester", requesterId,
+                "status", "PENDING"));
+    }
+
+    public long addCompilation(Iterable<Long> eventIds) {
+        long compilationId = insert("compilations", Map.of("pinned", false, "title", "compilation" + SEQUENCE.incrementAndGet()));
+        for (Long eventId : eventIds) {
+            jdbcTemplate.update("INSERT INTO events_compilations (event_id, compilation_id) VALUES (?, ?)", eventId, compilationId);
+        }
+        return compilationId;
+    }
+
+    private long insert(String table, Map<String, Object> values) {
+        return new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName(table)
+                .usingColumns(values.keySet().toArray(new String[0]))
+                .usingGeneratedKeyColumns("id")
+                .executeAndReturnKey(values)
+                .longValue();
+    }
+}
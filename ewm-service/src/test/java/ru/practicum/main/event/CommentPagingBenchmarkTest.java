@@ -0,0 +1,108 @@
+package ru.practicum.main.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.main.TestData;
+import ru.practicum.main.event.service.CommentService;
+import ru.practicum.main.pagination.PageCursor;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение OFFSET- и keyset-пагинации комментариев на миллионе строк одного события.
+ * Долгий, поэтому запускается только явно: mvn test -Dbenchmark=true -Dtest=CommentPagingBenchmarkTest
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@ActiveProfiles("test")
+class CommentPagingBenchmarkTest {
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH = 10_000;
+    private static final int PAGE_SIZE = 10;
+    private static final int RUNS = 5;
+    private static final int WARMUP_RUNS = 2;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long eventId;
+
+    @BeforeEach
+    void setUp() {
+        TestData testData = new TestData(jdbcTemplate);
+        long authorId = testData.addUser();
+        eventId = testData.addEvent(authorId, 0, false);
+
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        for (int from = 0; from < ROWS; from += BATCH) {
+            List<Object[]> batch = new ArrayList<>(BATCH);
+            for (int i = from; i < from + BATCH; i++) {
+                batch.add(new Object[]{"comment " + i, eventId, authorId, Timestamp.valueOf(start.plusSeconds(i))});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO comments (text, event_id, author_id, created) VALUES (?, ?, ?, ?)", batch);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM comments WHERE event_id = ?", eventId);
+    }
+
+    @Test
+    void keysetDeepPageIsFasterThanOffset() {
+        int offset = ROWS - PAGE_SIZE * 100;
+        // Курсоры на строки перед теми же глубокими страницами, что читает OFFSET; страницы в каждом замере разные,
+        // чтобы H2 не отдавал результат предыдущего одинакового запроса
+        List<String> cursors = new ArrayList<>();
+        for (int run = 0; run < RUNS + WARMUP_RUNS; run++) {
+            cursors.add(jdbcTemplate.queryForObject("SELECT created, id FROM comments WHERE event_id = ? "
+                            + "ORDER BY created, id OFFSET ? ROWS FETCH FIRST 1 ROWS ONLY",
+                    (rs, rowNum) -> PageCursor.encode(PageCursor.Kind.COMMENT,
+                            rs.getTimestamp("created").toLocalDateTime(), rs.getLong("id")),
+                    eventId, offset + run * PAGE_SIZE - 1));
+        }
+
+        long firstPage = medianNanos(run -> commentService.getCommentsPrivate(eventId, "", PAGE_SIZE));
+        long offsetPage = medianNanos(run -> commentService.getCommentsPrivate(eventId, offset + run * PAGE_SIZE, PAGE_SIZE));
+        long keysetPage = medianNanos(run -> commentService.getCommentsPrivate(eventId, cursors.get(run), PAGE_SIZE));
+
+        log.info("{} comments, page of {}: keyset first page {} us, OFFSET {} - {} us, keyset at the same depth - {} us",
+                ROWS, PAGE_SIZE, firstPage / 1000, offset, offsetPage / 1000, keysetPage / 1000);
+        assertThat(keysetPage).isLessThan(offsetPage);
+    }
+
+    // Медиана RUNS замеров после прогревочных вызовов; run - номер вызова
+    private static long medianNanos(IntConsumer action) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            action.accept(run);
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            action.accept(WARMUP_RUNS + i);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.main.event;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.main.TestData;
+import ru.practicum.main.compilation.service.CompilationService;
+import ru.practicum.main.event.service.EventService;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Число SQL-запросов на страницу событий не должно зависеть от числа событий на ней:
+ * категории, инициаторы и локации грузятся планами загрузки или пакетно, а не по запросу на строку.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EventQueryCountTest {
+    private static final int SMALL_PAGE = 2;
+    private static final int LARGE_PAGE = 20;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private CompilationService compilationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TestData testData;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        testData = new TestData(jdbcTemplate);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void adminEventsPageUsesConstantQueryCount() {
+        Page small = addPage(SMALL_PAGE, false);
+        Page large = addPage(LARGE_PAGE, false);
+
+        long smallCount = count(() -> eventService.getEventsAdmin(small.initiators, null, null, null, null, 0, LARGE_PAGE));
+        long largeCount = count(() -> eventService.getEventsAdmin(large.initiators, null, null, null, null, 0, LARGE_PAGE));
+
+        assertThat(largeCount).isEqualTo(smallCount);
+    }
+
+    @Test
+    void privateEventsPageUsesConstantQueryCount() {
+        Page small = addPage(SMALL_PAGE, true);
+        Page large = addPage(LARGE_PAGE, true);
+
+        long smallCount = count(() -> eventService.getEventsPrivate(small.initiators.get(0), 0, LARGE_PAGE));
+        long largeCount = count(() -> eventService.getEventsPrivate(large.initiators.get(0), 0, LARGE_PAGE));
+
+        assertThat(largeCount).isEqualTo(smallCount);
+    }
+
+    @Test
+    void publicEventsPageUsesConstantQueryCount() {
+        Page small = addPage(SMALL_PAGE, false);
+        Page large = addPage(LARGE_PAGE, false);
+
+        long smallCount = count(() -> eventService.getEventsAndStatsPublic(new MockHttpServletRequest("GET", "/events"),
+                null, small.categories, null, null, null, false, null, 0, LARGE_PAGE));
+        long largeCount = count(() -> eventService.getEventsAndStatsPublic(new MockHttpServletRequest("GET", "/events"),
+                null, large.categories, null, null, null, false, null, 0, LARGE_PAGE));
+
+        assertThat(largeCount).isEqualTo(smallCount);
+    }
+
+    @Test
+    void compilationUsesConstantQueryCount() {
+        long small = testData.addCompilation(addPage(SMALL_PAGE, false).events);
+        long large = testData.addCompilation(addPage(LARGE_PAGE, false).events);
+
+        long smallCount = count(() -> compilationService.getCompilationByIdPublic(small));
+        long largeCount = count(() -> compilationService.getCompilationByIdPublic(large));
+
+        assertThat(largeCount).isEqualTo(smallCount);
+    }
+
+    private long count(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // События со своими категориями и локациями; инициатор общий или у каждого свой
+    private Page addPage(int size, boolean sameInitiator) {
+        Page page = new Page();
+        long initiatorId = testData.addUser();
+        for (int i = 0; i < size; i++) {
+            if (!sameInitiator && i > 0) {
+                initiatorId = testData.addUser();
+            }
+            long eventId = testData.addEvent(initiatorId, 0, false);
+            page.events.add(eventId);
+            page.initiators.add(initiatorId);
+            page.categories.add(jdbcTemplate.queryForObject("SELECT category_id FROM events WHERE id = ?", Long.class, eventId));
+        }
+        return page;
+    }
+
+    private static class Page {
+        private final List<Long> events = new ArrayList<>();
+        private final List<Long> initiators = new ArrayList<>();
+        private final List<Long> categories = new ArrayList<>();
+    }
+}
@@ -0,0 +1,230 @@
+package ru.practicum.main.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main.TestData;
+import ru.practicum.main.event.model.Event;
+import ru.practicum.main.event.service.EventService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Планы и задержка публичного поиска событий: спецификации (один Criteria-запрос) против прежних
+ * нативных запросов на каждую комбинацию флагов, SQL которых взят из них без изменений.
+ * Долгий, поэтому запускается только явно: mvn test -Dbenchmark=true -Dtest=EventSearchBenchmarkTest
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.main.event.EventSearchBenchmarkTest$LastSelect")
+@ActiveProfiles("test")
+class EventSearchBenchmarkTest {
+    private static final int ROWS = 100_000;
+    private static final int BATCH = 10_000;
+    private static final int CATEGORIES = 20;
+    private static final int PAGE_SIZE = 10;
+    private static final int RUNS = 7;
+    private static final int WARMUP_RUNS = 3;
+    private static final String TEXT = "concert";
+
+    // SQL прежних EventRepository.getEventsNoPeriodSortEventDate*, включая ошибки приоритета AND/OR
+    private static final String LEGACY_AVAILABLE_CATEGORY = "select * from events as e " +
+            "where e.state=?1 " +
+            "and e.category_id in ?2 " +
+            "and e.paid=?3 " +
+            "and e.participant_limit = 0 or e.participant_limit > e.confirmed_requests " +
+            "and e.event_date > ?4 " +
+            "order by e.event_date desc ";
+    private static final String LEGACY_CATEGORY = "select * from events as e " +
+            "where e.state=?1 " +
+            "and e.category_id in ?2 " +
+            "and e.paid=?3 " +
+            "and e.event_date > ?4 " +
+            "order by e.event_date desc ";
+    private static final String LEGACY_TEXT = "select * from events as e " +
+            "where e.state=?1 " +
+            "and e.paid=?2 " +
+            "and e.event_date > ?3 " +
+            "and upper(e.annotation) like upper(?4) or upper(e.description) like upper(?4) " +
+            "order by e.event_date desc ";
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private List<Long> categories;
+
+    @BeforeEach
+    void setUp() {
+        TestData testData = new TestData(jdbcTemplate);
+        long initiatorId = testData.addUser();
+        long locationId = jdbcTemplate.queryForObject("SELECT location_id FROM events WHERE id = ?", Long.class,
+                testData.addEvent(initiatorId, 0, false));
+        List<Long> allCategories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            allCategories.add(testData.addCategory());
+        }
+        categories = allCategories.subList(0, 3);
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ROWS; from += BATCH) {
+            List<Object[]> batch = new ArrayList<>(BATCH);
+            for (int i = from; i < from + BATCH; i++) {
+                String annotation = (random.nextInt(20) == 0 ? TEXT + " " : "") + "annotation " + i;
+                int limit = random.nextBoolean() ? 0 : 10;
+                batch.add(new Object[]{annotation, allCategories.get(random.nextInt(CATEGORIES)), random.nextInt(11),
+                        Timestamp.valueOf(now), "description " + i, Timestamp.valueOf(now.plusHours(random.nextInt(20_000) - 10_000)),
+                        initiatorId, locationId, random.nextBoolean(), limit, random.nextInt(10) == 0 ? "PENDING" : "PUBLISHED",
+                        "event " + i});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO events (annotation, category_id, confirmed_requests, created_on, description, "
+                    + "event_date, initiator_id, location_id, paid, participant_limit, request_moderation, state, title, views) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, 0)", batch);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM events");
+    }
+
+    @Test
+    void specificationSearchUsesIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> report = new ArrayList<>();
+
+        report.add(compare("categories + paid + onlyAvailable", LEGACY_AVAILABLE_CATEGORY,
+                new Object[]{"PUBLISHED", categories, true, now},
+                page -> search(null, categories, true, page)));
+        report.add(compare("categories + paid", LEGACY_CATEGORY,
+                new Object[]{"PUBLISHED", categories, true, now},
+                page -> search(null, categories, false, page)));
+        report.add(compare("text + paid", LEGACY_TEXT,
+                new Object[]{"PUBLISHED", true, now, "%" + TEXT + "%"},
+                page -> search(TEXT, null, false, page)));
+
+        log.info("Public event search over {} events, page of {}:\n{}", ROWS, PAGE_SIZE, String.join("\n", report));
+    }
+
+    private void search(String text, List<Long> categories, boolean onlyAvailable, int page) {
+        eventService.getEventsAndStatsPublic(new MockHttpServletRequest("GET", "/events"), text, categories, true,
+                null, null, onlyAvailable, "EVENT_DATE", page * PAGE_SIZE, PAGE_SIZE);
+    }
+
+    // Сравнивает планы и медианы задержки; новый запрос обязан идти по индексу
+    private String compare(String name, String legacySql, Object[] parameters, IntConsumer search) {
+        LastSelect.clear();
+        search.accept(0);
+        String plan = explain(LastSelect.get(), new Object[0]);
+        String legacyPlan = explain(legacySql, parameters);
+
+        long legacyNanos = medianNanos(page -> legacy(legacySql, parameters, page));
+        long nanos = medianNanos(search);
+
+        log.info("{}\nlegacy plan:\n{}\nspecification plan:\n{}", name, legacyPlan, plan);
+        assertThat(plan).doesNotContain("tableScan").contains("_IDX");
+        return String.format("  %s: legacy %d us (%s), specifications %d us (%s)", name,
+                legacyNanos / 1000, scanOf(legacyPlan), nanos / 1000, scanOf(plan));
+    }
+
+    // Как прежний EventServiceImpl: нативный запрос в сущности, затем DTO с ленивой загрузкой связей
+    private void legacy(String sql, Object[] parameters, int page) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Query query = entityManager.createNativeQuery(sql, Event.class);
+            for (int i = 0; i < parameters.length; i++) {
+                query.setParameter(i + 1, parameters[i]);
+            }
+            List<?> events = query.setFirstResult(page * PAGE_SIZE).setMaxResults(PAGE_SIZE).getResultList();
+            events.forEach(event -> EventMapper.toEventShortDto((Event) event));
+        });
+    }
+
+    // EXPLAIN в H2 не требует значений параметров; списки для IN подставляются литералом
+    private String explain(String sql, Object[] parameters) {
+        String explained = sql;
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] instanceof List) {
+                String values = ((List<?>) parameters[i]).stream().map(String::valueOf).collect(Collectors.joining(", "));
+                explained = explained.replace("?" + (i + 1), "(" + values + ")");
+            }
+        }
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + explained, String.class));
+    }
+
+    private static String scanOf(String plan) {
+        return plan.contains("tableScan") ? "table scan" : "index";
+    }
+
+    // Медиана RUNS замеров после прогревочных вызовов; страница своя в каждом вызове, чтобы H2 не отдавал кэш
+    private static long medianNanos(IntConsumer action) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            action.accept(run);
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            action.accept(WARMUP_RUNS + i);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    /**
+     * Запоминает последний SELECT по таблице events, который Hibernate отправил в базу.
+     */
+    public static class LastSelect implements StatementInspector {
+        private static volatile String sql;
+
+        static void clear() {
+            sql = null;
+        }
+
+        static String get() {
+            assertThat(sql).as("captured search SQL").isNotNull();
+            return sql;
+        }
+
+        @Override
+        public String inspect(String statement) {
+            if (statement.startsWith("select") && statement.contains(" from events ")) {
+                sql = statement;
+            }
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.main.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+import ru.practicum.ewm.dto.stats.statsDto.StatsApi;
+import ru.practicum.main.TestData;
+import ru.practicum.main.event.service.EventService;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Публичный просмотр события засчитывается, только если статистика ещё не знает обращений к его URI.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EventViewsTest {
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private StatsApi statsApi;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData testData;
+
+    @BeforeEach
+    void setUp() {
+        testData = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void repeatedViewsAreCountedOnce() {
+        long eventId = testData.addEvent(testData.addUser(), 0, false);
+
+        for (int i = 0; i < 3; i++) {
+            view(eventId, "10.0.0." + i);
+        }
+
+        assertThat(view(eventId, "10.0.0.1")).isEqualTo(1);
+    }
+
+    @Test
+    void viewIsNotCountedWhenStatsAlreadyHaveHit() {
+        long eventId = testData.addEvent(testData.addUser(), 0, false);
+        statsApi.addRequest(new EndpointHitDto(null, "main-service", "/events/" + eventId, "10.0.0.1",
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))));
+
+        assertThat(view(eventId, "10.0.0.2")).isZero();
+    }
+
+    private long view(long eventId, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/events/" + eventId);
+        request.setRemoteAddr(ip);
+        return eventService.getEventByIdAndStatsPublic(request, eventId).getViews();
+    }
+}
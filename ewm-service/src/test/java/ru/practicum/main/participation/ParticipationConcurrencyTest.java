@@ -0,0 +1,159 @@
+package ru.practicum.main.participation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main.TestData;
+import ru.practicum.main.event.dto.EventRequestStatusUpdateRequest;
+import ru.practicum.main.event.repository.EventRepository;
+import ru.practicum.main.event.service.EventService;
+import ru.practicum.main.exception.OverflowLimitException;
+import ru.practicum.main.participation.service.ParticipationService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельные заявки и подтверждения на границе participantLimit: условный UPDATE confirmed_requests
+ * с проверкой version вместе с OptimisticRetryExecutor не должен пропускать участников сверх лимита.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ParticipationConcurrencyTest {
+    private static final int PARTICIPANT_LIMIT = 5;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ParticipationService participationService;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData testData;
+
+    @BeforeEach
+    void setUp() {
+        testData = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void concurrentJoinsDoNotExceedParticipantLimit() throws Exception {
+        long initiatorId = testData.addUser();
+        long eventId = testData.addEvent(initiatorId, PARTICIPANT_LIMIT, false);
+
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS * 2; i++) {
+            long userId = testData.addUser();
+            tasks.add(() -> participationService.addParticipationRequestPrivate(userId, eventId));
+        }
+        runConcurrently(tasks);
+
+        assertThat(confirmedRequests(eventId)).isEqualTo(PARTICIPANT_LIMIT);
+        assertThat(participations(eventId, "CONFIRMED")).isEqualTo(PARTICIPANT_LIMIT);
+    }
+
+    @Test
+    void concurrentJoinsAndConfirmationsDoNotExceedParticipantLimit() throws Exception {
+        long initiatorId = testData.addUser();
+        long eventId = testData.addEvent(initiatorId, PARTICIPANT_LIMIT, true);
+        List<Long> pending = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            pending.add(testData.addParticipation(testData.addUser(), eventId));
+        }
+        // Новые заявки подтверждаются сразу и конкурируют за те же места, что и подтверждения инициатора
+        jdbcTemplate.update("UPDATE events SET request_moderation = FALSE WHERE id = ?", eventId);
+
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i += 2) {
+            EventRequestStatusUpdateRequest request =
+                    new EventRequestStatusUpdateRequest(pending.subList(i, i + 2), "CONFIRMED");
+            tasks.add(() -> eventService.updateEventRequestStatusPrivate(initiatorId, eventId, request));
+            long userId = testData.addUser();
+            tasks.add(() -> participationService.addParticipationRequestPrivate(userId, eventId));
+        }
+        runConcurrently(tasks);
+
+        long confirmed = confirmedRequests(eventId);
+        assertThat(confirmed).isLessThanOrEqualTo(PARTICIPANT_LIMIT);
+        assertThat(participations(eventId, "CONFIRMED")).isEqualTo(confirmed);
+    }
+
+    @Test
+    void confirmedRequestsUpdateChecksAndBumpsVersion() {
+        long eventId = testData.addEvent(testData.addUser(), PARTICIPANT_LIMIT, false);
+        long version = version(eventId);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int added = transaction.execute(status -> eventRepository.addConfirmedRequests(eventId, 1, version));
+        // Прочитанная ранее версия устарела - счётчик не меняется
+        int addedStale = transaction.execute(status -> eventRepository.addConfirmedRequests(eventId, 1, version));
+        int removedStale = transaction.execute(status -> eventRepository.removeConfirmedRequests(eventId, 1, version));
+
+        assertThat(added).isEqualTo(1);
+        assertThat(addedStale).isZero();
+        assertThat(removedStale).isZero();
+        assertThat(version(eventId)).isEqualTo(version + 1);
+        assertThat(confirmedRequests(eventId)).isEqualTo(1);
+    }
+
+    // Запускает задачи одновременно; отказы по лимиту и исчерпанные повторы допустимы, остальное - ошибка теста
+    private void runConcurrently(List<Callable<Object>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<Object> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return task.call();
+                    } catch (OverflowLimitException | OptimisticLockingFailureException e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Object> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long confirmedRequests(long eventId) {
+        return jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?", Long.class, eventId);
+    }
+
+    private long version(long eventId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM events WHERE id = ?", Long.class, eventId);
+    }
+
+    private long participations(long eventId, String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM participations WHERE event = ? AND status = ?",
+                Long.class, eventId, status);
+    }
+}
@@ -0,0 +1,174 @@
+package ru.practicum.main.participation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main.TestData;
+import ru.practicum.main.event.model.Event;
+import ru.practicum.main.event.model.Status;
+import ru.practicum.main.event.repository.EventRepository;
+import ru.practicum.main.exception.RepeatParticipationRequestException;
+import ru.practicum.main.participation.model.ParticipationRequest;
+import ru.practicum.main.participation.repository.ParticipationRepository;
+import ru.practicum.main.participation.service.ParticipationService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Пропускная способность заявок на одно «горячее» событие: версионный условный UPDATE с повторами
+ * (как в ParticipationServiceImpl) против SELECT ... FOR UPDATE на строке события.
+ * Долгий, поэтому запускается только явно: mvn test -Dbenchmark=true -Dtest=ParticipationLockingBenchmarkTest
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@ActiveProfiles("test")
+class ParticipationLockingBenchmarkTest {
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 2_000;
+    private static final int WARMUP_REQUESTS = 200;
+
+    @Autowired
+    private ParticipationService participationService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private ParticipationRepository participationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TestData testData;
+
+    @BeforeEach
+    void setUp() {
+        testData = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void optimisticJoinsCompareWithPessimistic() throws Exception {
+        run("optimistic", WARMUP_REQUESTS, this::joinOptimistic);
+        run("pessimistic", WARMUP_REQUESTS, this::joinPessimistic);
+
+        Result optimistic = run("optimistic", REQUESTS, this::joinOptimistic);
+        Result pessimistic = run("pessimistic", REQUESTS, this::joinPessimistic);
+
+        log.info("{} joins of one event in {} threads: optimistic {} joins/s ({} gave up after retries), pessimistic {} joins/s",
+                REQUESTS, THREADS, optimistic.throughput(), optimistic.conflicts, pessimistic.throughput());
+        assertThat(pessimistic.conflicts).isZero();
+        assertThat(optimistic.confirmed + optimistic.conflicts).isEqualTo(REQUESTS);
+        assertThat(pessimistic.confirmed).isEqualTo(REQUESTS);
+    }
+
+    private Long joinOptimistic(long userId, long eventId) {
+        return participationService.addParticipationRequestPrivate(userId, eventId).getId();
+    }
+
+    // Та же заявка без модерации, но строка события блокируется на всю транзакцию
+    private Long joinPessimistic(long userId, long eventId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Event event = entityManager.find(Event.class, eventId, LockModeType.PESSIMISTIC_WRITE);
+            if (!participationRepository.getParticipationRequestsByRequesterAndEvent(userId, eventId).isEmpty()) {
+                throw new RepeatParticipationRequestException("Repeated Request!");
+            }
+            eventRepository.addConfirmedRequests(eventId, 1, event.getVersion());
+            return participationRepository.save(ParticipationRequest.builder()
+                    .created(LocalDateTime.now())
+                    .event(eventId)
+                    .requester(userId)
+                    .status(Status.CONFIRMED)
+                    .build()).getId();
+        });
+    }
+
+    // Все заявки идут на одно событие без лимита и модерации, каждая от нового пользователя
+    private Result run(String name, int requests, Join join) throws Exception {
+        long eventId = testData.addEvent(testData.addUser(), 0, false);
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            users.add(testData.addUser());
+        }
+
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        long startedAt;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long userId : users) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        join.join(userId, eventId);
+                    } catch (OptimisticLockingFailureException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Result result = new Result(System.nanoTime() - startedAt,
+                jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?", Long.class, eventId),
+                conflicts.get());
+        log.debug("{}: {} confirmed in {} ms", name, result.confirmed, result.nanos / 1_000_000);
+        return result;
+    }
+
+    private interface Join {
+        Long join(long userId, long eventId);
+    }
+
+    private static class Result {
+        private final long nanos;
+        private final long confirmed;
+        private final int conflicts;
+
+        private Result(long nanos, long confirmed, int conflicts) {
+            this.nanos = nanos;
+            this.confirmed = confirmed;
+            this.conflicts = conflicts;
+        }
+
+        private long throughput() {
+            return confirmed * 1_000_000_000L / nanos;
+        }
+    }
+}
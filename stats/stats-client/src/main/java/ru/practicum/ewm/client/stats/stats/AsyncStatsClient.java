@@ -0,0 +1,214 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+import ru.practicum.ewm.dto.stats.statsDto.StatsApi;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Неблокирующий клиент stats-сервера на java.net.http.HttpClient: вызовы возвращают CompletableFuture
+ * и не занимают поток вызывающего, пока ждут ответа.
+ */
+@Service
+public class AsyncStatsClient {
+    private final HttpClient http;
+    private final String serverUrl;
+    private final Duration requestTimeout;
+    // Ограничивает число одновременных запросов, а значит и открытых HTTP/1.1 соединений
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final ObjectReader viewStatsReader;
+    private final ObjectReader endpointHitReader;
+    private final ObjectWriter endpointHitWriter;
+    private final ObjectWriter endpointHitsWriter;
+    @Nullable
+    private final StatsApi embedded;
+    private final StatsCircuitBreaker circuitBreaker;
+
+    @Autowired
+    public AsyncStatsClient(@Value("${STATS_SERVER_URL:http://localhost:9090}") String serverUrl,
+                            @Value("${stats.client.connect-timeout-ms:1000}") long connectTimeoutMs,
+                            @Value("${stats.client.request-timeout-ms:3000}") long requestTimeoutMs,
+                            @Value("${stats.client.max-connections:20}") int maxConnections,
+                            @Value("${stats.client.async.threads:4}") int threads,
+                            ObjectMapper objectMapper,
+                            ObjectProvider<StatsApi> embedded,
+                            StatsCircuitBreaker circuitBreaker) {
+        if (maxConnections <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Connection and thread limits must be positive");
+        }
+        this.serverUrl = serverUrl.endsWith("/") ? serverUrl.substring(0, serverUrl.length() - 1) : serverUrl;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.permits = new Semaphore(maxConnections);
+        this.embedded = embedded.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "stats-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(executor)
+                .build();
+
+        this.viewStatsReader = objectMapper.readerFor(new TypeReference<List<ViewStats>>() {
+        });
+        this.endpointHitReader = objectMapper.readerFor(EndpointHitDto.class);
+        this.endpointHitWriter = objectMapper.writerFor(EndpointHitDto.class);
+        this.endpointHitsWriter = objectMapper.writerFor(new TypeReference<List<EndpointHitDto>>() {
+        });
+    }
+
+    public CompletableFuture<EndpointHitDto> addHit(String ipResource, EndpointHitDto endpointHitDto) {
+        if (embedded != null) {
+            return CompletableFuture.completedFuture(embedded.addRequest(endpointHitDto));
+        }
+        return send(post("/hit", ipResource, write(endpointHitWriter, endpointHitDto)), requestTimeout)
+                .thenApply(body -> read(endpointHitReader, body));
+    }
+
+    public CompletableFuture<Void> addHits(List<EndpointHitDto> endpointHitDtos) {
+        if (embedded != null) {
+            embedded.addRequests(endpointHitDtos);
+            return CompletableFuture.completedFuture(null);
+        }
+        return send(post("/hit/batch", null, write(endpointHitsWriter, endpointHitDtos)), requestTimeout)
+                .thenApply(body -> null);
+    }
+
+    public CompletableFuture<List<ViewStats>> getViewStats(String ipResource, String start, String end, String[] uris,
+                                                           boolean unique) {
+        return getViewStats(ipResource, start, end, uris, unique, requestTimeout);
+    }
+
+    public CompletableFuture<List<ViewStats>> getViewStats(String ipResource, String start, String end, String[] uris,
+                                                           boolean unique, Duration deadline) {
+        if (embedded != null) {
+            return CompletableFuture.completedFuture(embedded.getStats(start, end, uris, unique, false));
+        }
+        StringBuilder path = new StringBuilder("/stats?start=").append(encode(start))
+                .append("&end=").append(encode(end))
+                .append("&unique=").append(unique);
+        if (uris != null) {
+            for (String uri : uris) {
+                path.append("&uris=").append(encode(uri));
+            }
+        }
+        HttpRequest.Builder request = request(path.toString(), ipResource).GET();
+        return send(request, deadline).thenApply(body -> read(viewStatsReader, body));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private CompletableFuture<byte[]> send(HttpRequest.Builder request, Duration deadline) {
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many concurrent stats requests"));
+        }
+        if (!circuitBreaker.allowRequest()) {
+            permits.release();
+            return CompletableFuture.failedFuture(new StatsServerException(503, "Stats server circuit is open"));
+        }
+        CompletableFuture<byte[]> response;
+        try {
+            response = http.sendAsync(request.timeout(deadline).build(), HttpResponse.BodyHandlers.ofByteArray())
+                    .thenApply(AsyncStatsClient::checkStatus);
+        } catch (RuntimeException e) {
+            permits.release();
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        // Таймаут запроса HttpClient ограничивает только ожидание заголовков, общий срок задаём отдельно
+        return response.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((body, e) -> {
+                    permits.release();
+                    if (e == null || isClientError(e)) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                });
+    }
+
+    private HttpRequest.Builder post(String path, String ipResource, byte[] body) {
+        return request(path, ipResource).POST(HttpRequest.BodyPublishers.ofByteArray(body));
+    }
+
+    private HttpRequest.Builder request(String path, String ipResource) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(serverUrl + path))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        if (ipResource != null) {
+            builder.header("X-Stats-Resource-Ip", ipResource);
+        }
+        return builder;
+    }
+
+    private static byte[] checkStatus(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new StatsServerException(response.statusCode(),
+                    "Stats server responded " + response.statusCode() + ": "
+                            + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return response.body();
+    }
+
+    private static boolean isClientError(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof StatsServerException && ((StatsServerException) cause).getStatus() / 100 == 4;
+    }
+
+    private static <T> byte[] write(ObjectWriter writer, T value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T read(ObjectReader reader, byte[] body) {
+        try {
+            return reader.readValue(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
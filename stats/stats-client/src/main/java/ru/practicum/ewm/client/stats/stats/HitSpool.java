@@ -0,0 +1,33 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+
+import java.util.List;
+
+/**
+ * FIFO-хранилище хитов, которые не удалось отправить на stats-сервер.
+ * Чтение двухфазное: peek отдаёт хиты из головы, commit удаляет их после успешной отправки,
+ * release оставляет в спуле после неудачной.
+ */
+public interface HitSpool {
+
+    /**
+     * @return число хитов, отброшенных из-за переполнения
+     */
+    int append(List<EndpointHitDto> hits);
+
+    List<EndpointHitDto> peek(int max);
+
+    void commit();
+
+    /**
+     * @return число выданных peek хитов, которые за время отправки вытеснило переполнение и которые теперь потеряны
+     */
+    int release();
+
+    int size();
+
+    void sync();
+
+    void close();
+}
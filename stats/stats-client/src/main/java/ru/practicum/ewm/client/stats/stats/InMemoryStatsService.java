@@ -0,0 +1,249 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+import ru.practicum.ewm.dto.stats.statsDto.StatsApi;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Встроенная замена stats-сервера для тестов и разработки (stats.client.mode=embedded): данные только в памяти.
+// Хиты хранятся посекундно в примитивных массивах по паре app/uri, ip - 64-битным хэшем.
+// Секунды старше retention-hours от последнего хита пары отбрасываются, поэтому память ограничена
+@Service
+@ConditionalOnProperty(name = "stats.client.mode", havingValue = "embedded")
+public class InMemoryStatsService implements StatsApi {
+    private final long retentionSeconds;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicLong nextHitId = new AtomicLong();
+    private final Object growLock = new Object();
+    private int nextNameId;
+    // индекс - id имени
+    private volatile String[] names = new String[64];
+    // индекс - id uri, внутри пары этого uri с разными app
+    private volatile Pair[][] pairs = new Pair[64][];
+
+    public InMemoryStatsService(@Value("${stats.client.embedded.retention-hours:24}") int retentionHours) {
+        if (retentionHours <= 0) {
+            throw new IllegalArgumentException("Retention must be positive");
+        }
+        this.retentionSeconds = retentionHours * 3600L;
+    }
+
+    @Override
+    public EndpointHitDto addRequest(EndpointHitDto endpointHitDto) {
+        Pair pair = pairOf(idOf(endpointHitDto.getApp()), idOf(endpointHitDto.getUri()));
+        long second = toSecond(endpointHitDto.getTimestamp());
+        long ip = hash(endpointHitDto.getIp());
+        synchronized (pair) {
+            pair.add(second, ip, retentionSeconds);
+        }
+        return new EndpointHitDto((int) nextHitId.incrementAndGet(), endpointHitDto.getApp(), endpointHitDto.getUri(),
+                endpointHitDto.getIp(), endpointHitDto.getTimestamp());
+    }
+
+    @Override
+    public void addRequests(List<EndpointHitDto> endpointHitDtos) {
+        endpointHitDtos.forEach(this::addRequest);
+    }
+
+    @Override
+    public List<ViewStats> getStats(String start, String end, String[] uris, boolean unique, boolean approximate) {
+        long from = toSecond(start);
+        long to = toSecond(end);
+        if (to < from) {
+            throw new IllegalArgumentException("End before start");
+        }
+        Set<String> uriFilter = uris == null ? null : new HashSet<>(Arrays.asList(uris));
+
+        List<ViewStats> list = new ArrayList<>();
+        Pair[][] table = pairs;
+        for (int uriId = 0; uriId < table.length; uriId++) {
+            Pair[] row = table[uriId];
+            if (row == null) {
+                continue;
+            }
+            String uri = nameOf(uriId);
+            if (uriFilter != null && !uriFilter.contains(uri)) {
+                continue;
+            }
+            for (Pair pair : row) {
+                long hits;
+                synchronized (pair) {
+                    hits = pair.count(from, to, unique);
+                }
+                if (hits > 0) {
+                    list.add(new ViewStats(nameOf(pair.appId), uri, (int) hits));
+                }
+            }
+        }
+        list.sort(Comparator.comparing(ViewStats::getHits).reversed());
+        return list;
+    }
+
+    private int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : ids.computeIfAbsent(name, this::register);
+    }
+
+    private int register(String name) {
+        synchronized (growLock) {
+            int id = nextNameId++;
+            if (id >= names.length) {
+                names = Arrays.copyOf(names, names.length * 2);
+            }
+            names[id] = name;
+            return id;
+        }
+    }
+
+    private String nameOf(int id) {
+        String[] current = names;
+        String name = id < current.length ? current[id] : null;
+        if (name == null) {
+            synchronized (growLock) {
+                name = names[id];
+            }
+        }
+        return name;
+    }
+
+    private Pair pairOf(int appId, int uriId) {
+        Pair[][] table = pairs;
+        Pair pair = find(uriId < table.length ? table[uriId] : null, appId);
+        if (pair != null) {
+            return pair;
+        }
+        synchronized (growLock) {
+            table = pairs;
+            if (uriId >= table.length) {
+                table = Arrays.copyOf(table, Math.max(table.length * 2, uriId + 1));
+            }
+            Pair[] row = table[uriId];
+            pair = find(row, appId);
+            if (pair == null) {
+                pair = new Pair(appId);
+                row = row == null ? new Pair[1] : Arrays.copyOf(row, row.length + 1);
+                row[row.length - 1] = pair;
+                table[uriId] = row;
+            }
+            pairs = table;
+            return pair;
+        }
+    }
+
+    private static Pair find(Pair[] row, int appId) {
+        if (row != null) {
+            for (Pair pair : row) {
+                if (pair != null && pair.appId == appId) {
+                    return pair;
+                }
+            }
+        }
+        return null;
+    }
+
+    // FNV-1a с перемешиванием; совпадение хэшей разных ip при таком объёме данных практически исключено
+    private static long hash(String ip) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < ip.length(); i++) {
+            hash ^= ip.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 29;
+        hash *= 0xbf58476d1ce4e5b9L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private static long toSecond(String time) {
+        return LocalDateTime.parse(time, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // Хиты одной пары app/uri: секунды по возрастанию в [head, size). Доступ под synchronized (pair)
+    private static class Pair {
+        private final int appId;
+        private long[] seconds = new long[16];
+        private int[] counts = new int[16];
+        private LongHashSet[] ips = new LongHashSet[16];
+        private int head;
+        private int size;
+
+        Pair(int appId) {
+            this.appId = appId;
+        }
+
+        void add(long second, long ip, long retentionSeconds) {
+            int index = Arrays.binarySearch(seconds, head, size, second);
+            if (index < 0) {
+                index = insert(-index - 1, second);
+            }
+            counts[index]++;
+            ips[index].add(ip);
+
+            long horizon = seconds[size - 1] - retentionSeconds;
+            while (head < size && seconds[head] < horizon) {
+                ips[head] = null;
+                head++;
+            }
+        }
+
+        long count(long from, long to, boolean unique) {
+            int first = Arrays.binarySearch(seconds, head, size, from);
+            first = first < 0 ? -first - 1 : first;
+            long hits = 0;
+            LongHashSet distinct = unique ? new LongHashSet() : null;
+            for (int i = first; i < size && seconds[i] <= to; i++) {
+                hits += counts[i];
+                if (unique) {
+                    distinct.addAll(ips[i]);
+                }
+            }
+            return unique ? distinct.size() : hits;
+        }
+
+        private int insert(int index, long second) {
+            if (size == seconds.length) {
+                index -= head;
+                compact();
+            }
+            System.arraycopy(seconds, index, seconds, index + 1, size - index);
+            System.arraycopy(counts, index, counts, index + 1, size - index);
+            System.arraycopy(ips, index, ips, index + 1, size - index);
+            seconds[index] = second;
+            counts[index] = 0;
+            ips[index] = new LongHashSet();
+            size++;
+            return index;
+        }
+
+        // Сдвигает живые секунды в начало массивов и при необходимости увеличивает их
+        private void compact() {
+            int live = size - head;
+            int capacity = live * 2 > seconds.length ? seconds.length * 2 : seconds.length;
+            long[] newSeconds = new long[capacity];
+            int[] newCounts = new int[capacity];
+            LongHashSet[] newIps = new LongHashSet[capacity];
+            System.arraycopy(seconds, head, newSeconds, 0, live);
+            System.arraycopy(counts, head, newCounts, 0, live);
+            System.arraycopy(ips, head, newIps, 0, live);
+            seconds = newSeconds;
+            counts = newCounts;
+            ips = newIps;
+            head = 0;
+            size = live;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.ewm.client.stats.stats;
+
+// Множество long без упаковки: открытая адресация с линейным пробированием. Не потокобезопасно
+class LongHashSet {
+    private static final long EMPTY = 0L;
+
+    private long[] slots;
+    private boolean containsEmpty;
+    private int size;
+
+    LongHashSet() {
+        this(4);
+    }
+
+    LongHashSet(int expectedSize) {
+        int capacity = 8;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        this.slots = new long[capacity];
+    }
+
+    boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 4 > slots.length * 3) {
+            resize();
+        }
+        if (!insert(slots, value)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    void addAll(LongHashSet other) {
+        if (other.containsEmpty) {
+            add(EMPTY);
+        }
+        for (long value : other.slots) {
+            if (value != EMPTY) {
+                add(value);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] resized = new long[slots.length * 2];
+        for (long value : slots) {
+            if (value != EMPTY) {
+                insert(resized, value);
+            }
+        }
+        slots = resized;
+    }
+
+    private static boolean insert(long[] slots, long value) {
+        int mask = slots.length - 1;
+        int index = (int) (mix(value) & mask);
+        while (slots[index] != EMPTY) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        return true;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
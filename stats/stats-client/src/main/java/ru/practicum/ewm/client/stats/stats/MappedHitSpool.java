@@ -0,0 +1,418 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Спул на диске: хиты дописываются в отображённые в память сегменты hits-N.log, позиция чтения
+ * сохраняется в файле checkpoint после каждого подтверждённого пакета.
+ * <p>
+ * Запись: int длина, int CRC32, затем long секунда (UTC), app и uri (short длина + UTF-8), ip (byte длина + ASCII).
+ * Нулевая длина означает конец записанных данных: новый сегмент заполнен нулями.
+ * <p>
+ * Каталог занимается блокировкой файла lock: второй процесс с тем же каталогом не стартует,
+ * а не перезаписывает чужие сегменты и checkpoint.
+ */
+@Slf4j
+public class MappedHitSpool implements HitSpool {
+    private static final int HEADER_BYTES = 8;
+    private static final int CHECKPOINT_BYTES = 16;
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String LOCK = "lock";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    // номер сегмента -> число записей в нём
+    private final TreeMap<Long, Integer> segments = new TreeMap<>();
+    private final FileChannel lockChannel;
+
+    private long writeSeq;
+    private MappedByteBuffer writeBuffer;
+    private int writePosition;
+
+    private long readSeq;
+    private MappedByteBuffer readBuffer;
+    private int readPosition;
+    private int readRecords;
+
+    private int size;
+    private long peekedSeq = -1;
+    private int peekedPosition;
+    private int peekedRecords;
+    // выданные peek хиты из вытесненного сегмента: потеряны, только если отправка не удалась
+    private int evictedPeeked;
+
+    public MappedHitSpool(Path dir, int segmentBytes, int maxSegments) {
+        if (segmentBytes < 1024 || maxSegments < 2) {
+            throw new IllegalArgumentException("Spool needs at least 2 segments of 1 KB");
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        try {
+            Files.createDirectories(dir);
+            this.lockChannel = lock(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open hit spool in " + dir.toAbsolutePath(), e);
+        }
+        boolean recovered = false;
+        try {
+            recover();
+            recovered = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open hit spool in " + dir.toAbsolutePath(), e);
+        } finally {
+            if (!recovered) {
+                close();
+            }
+        }
+        log.info("Hit spool in {}: {} hits to replay", dir.toAbsolutePath(), size);
+    }
+
+    @Override
+    public synchronized int append(List<EndpointHitDto> hits) {
+        int dropped = 0;
+        for (EndpointHitDto hit : hits) {
+            byte[] payload;
+            try {
+                payload = encode(hit);
+            } catch (RuntimeException e) {
+                log.warn("Cannot spool hit {} {}: {}", hit.getApp(), hit.getUri(), e.getMessage());
+                dropped++;
+                continue;
+            }
+            if (writePosition + HEADER_BYTES + payload.length > segmentBytes) {
+                dropped += roll();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            writeBuffer.putInt(writePosition + 4, (int) crc.getValue());
+            ByteBuffer target = writeBuffer.duplicate();
+            target.position(writePosition + HEADER_BYTES);
+            target.put(payload);
+            // Длину пишем последней: до этого запись не видна при чтении и восстановлении
+            writeBuffer.putInt(writePosition, payload.length);
+            writePosition += HEADER_BYTES + payload.length;
+            segments.merge(writeSeq, 1, Integer::sum);
+            size++;
+        }
+        return dropped;
+    }
+
+    @Override
+    public synchronized List<EndpointHitDto> peek(int max) {
+        List<EndpointHitDto> list = new ArrayList<>();
+        int position = readPosition;
+        while (true) {
+            byte[] payload;
+            while (list.size() < max && (payload = readRecord(readBuffer, position)) != null) {
+                list.add(decode(payload));
+                position += HEADER_BYTES + payload.length;
+            }
+            if (!list.isEmpty() || readSeq == writeSeq) {
+                break;
+            }
+            // Сегмент дочитан до конца - удаляем его и переходим к следующему
+            nextReadSegment();
+            position = 0;
+        }
+        peekedSeq = readSeq;
+        peekedPosition = position;
+        peekedRecords = list.size();
+        return list;
+    }
+
+    @Override
+    public synchronized void commit() {
+        // Хиты из вытесненного за время отправки сегмента доставлены, но из size уже вычтены
+        evictedPeeked = 0;
+        if (peekedRecords == 0 || peekedSeq != readSeq) {
+            peekedRecords = 0;
+            return;
+        }
+        readPosition = peekedPosition;
+        readRecords += peekedRecords;
+        size -= peekedRecords;
+        peekedRecords = 0;
+        writeCheckpoint();
+    }
+
+    @Override
+    public synchronized int release() {
+        int lost = evictedPeeked;
+        peekedRecords = 0;
+        evictedPeeked = 0;
+        return lost;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void sync() {
+        writeBuffer.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Cannot release hit spool lock in {}: {}", dir.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private int roll() {
+        writeBuffer.force();
+        writeSeq++;
+        writeBuffer = map(writeSeq);
+        writePosition = 0;
+        segments.put(writeSeq, 0);
+
+        int dropped = 0;
+        while (segments.size() > maxSegments) {
+            int unread = segments.get(readSeq) - readRecords;
+            // Выданные peek хиты сейчас отправляются: отброшенными они станут, только если отправка не удастся
+            int inFlight = peekedSeq == readSeq ? peekedRecords : 0;
+            log.warn("Hit spool is full, dropping {} hits from segment {}", unread, readSeq);
+            dropped += unread - inFlight;
+            evictedPeeked += inFlight;
+            peekedRecords = 0;
+            size -= unread;
+            nextReadSegment();
+        }
+        return dropped;
+    }
+
+    private void nextReadSegment() {
+        segments.remove(readSeq);
+        delete(readSeq);
+        readSeq = segments.firstKey();
+        readBuffer = readSeq == writeSeq ? writeBuffer : map(readSeq);
+        readPosition = 0;
+        readRecords = 0;
+        writeCheckpoint();
+    }
+
+    private void recover() throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "hits-*.log")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                files.put(Long.parseLong(name.substring(5, name.length() - 4)), file);
+            }
+        }
+
+        long checkpointSeq = files.isEmpty() ? 0 : files.firstKey();
+        int checkpointPosition = 0;
+        ByteBuffer checkpoint = readCheckpoint();
+        if (checkpoint != null) {
+            checkpointSeq = checkpoint.getLong(0);
+            checkpointPosition = checkpoint.getInt(8);
+        }
+        for (Map.Entry<Long, Path> file : files.headMap(checkpointSeq).entrySet()) {
+            Files.delete(file.getValue());
+        }
+        files = new TreeMap<>(files.tailMap(checkpointSeq));
+        if (files.isEmpty() || files.firstKey() != checkpointSeq) {
+            // Сегмент из checkpoint не найден - читаем с начала первого уцелевшего
+            checkpointSeq = files.isEmpty() ? checkpointSeq : files.firstKey();
+            checkpointPosition = 0;
+        }
+
+        readSeq = checkpointSeq;
+        writeSeq = files.isEmpty() ? checkpointSeq : files.lastKey();
+        for (long seq : files.keySet()) {
+            MappedByteBuffer buffer = map(seq);
+            int records = 0;
+            int position = 0;
+            byte[] payload;
+            while ((payload = readRecord(buffer, position)) != null) {
+                if (seq == readSeq && position < checkpointPosition) {
+                    readRecords++;
+                }
+                records++;
+                position += HEADER_BYTES + payload.length;
+            }
+            segments.put(seq, records);
+            if (seq == readSeq) {
+                readBuffer = buffer;
+                readPosition = Math.min(checkpointPosition, position);
+            }
+            if (seq == writeSeq) {
+                writeBuffer = buffer;
+                writePosition = position;
+                // Затираем весь хвост: после оборванной или повреждённой записи могут остаться целые,
+                // и новые записи другой длины сделали бы их снова читаемыми
+                ByteBuffer tail = buffer.duplicate();
+                tail.position(position);
+                byte[] zeros = new byte[Math.min(segmentBytes - position, 64 * 1024)];
+                while (tail.hasRemaining()) {
+                    tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            writeBuffer = map(writeSeq);
+            readBuffer = writeBuffer;
+            segments.put(writeSeq, 0);
+        }
+        for (Map.Entry<Long, Integer> segment : segments.entrySet()) {
+            size += segment.getValue();
+        }
+        size -= readRecords;
+    }
+
+    private static FileChannel lock(Path dir) throws IOException {
+        FileChannel channel = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // занят в этой же JVM
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IllegalStateException("Hit spool " + dir.toAbsolutePath() + " is used by another process");
+        }
+        return channel;
+    }
+
+    private byte[] readRecord(ByteBuffer buffer, int position) {
+        if (position + HEADER_BYTES > segmentBytes) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(position + HEADER_BYTES);
+        source.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+            log.warn("Corrupted hit record at {} in spool segment, ignoring the rest of the segment", position);
+            return null;
+        }
+        return payload;
+    }
+
+    private MappedByteBuffer map(long seq) {
+        try (FileChannel channel = FileChannel.open(segment(seq), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void delete(long seq) {
+        try {
+            Files.deleteIfExists(segment(seq));
+        } catch (IOException e) {
+            log.warn("Cannot delete spool segment {}: {}", seq, e.getMessage());
+        }
+    }
+
+    private Path segment(long seq) {
+        return dir.resolve(String.format("hits-%019d.log", seq));
+    }
+
+    private ByteBuffer readCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, Math.min(bytes.length, 12));
+        if (bytes.length != CHECKPOINT_BYTES || (int) crc.getValue() != ByteBuffer.wrap(bytes).getInt(12)) {
+            log.warn("Spool checkpoint is corrupted, replaying from the oldest segment");
+            return null;
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private void writeCheckpoint() {
+        ByteBuffer bytes = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        bytes.putLong(readSeq).putInt(readPosition);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.array(), 0, 12);
+        bytes.putInt((int) crc.getValue());
+        bytes.flip();
+
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(bytes);
+                channel.force(true);
+            }
+            Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write spool checkpoint", e);
+        }
+    }
+
+    private static byte[] encode(EndpointHitDto hit) {
+        long second = LocalDateTime.parse(hit.getTimestamp(), FORMATTER).toEpochSecond(ZoneOffset.UTC);
+        byte[] app = hit.getApp().getBytes(StandardCharsets.UTF_8);
+        byte[] uri = hit.getUri().getBytes(StandardCharsets.UTF_8);
+        byte[] ip = hit.getIp().getBytes(StandardCharsets.US_ASCII);
+        if (app.length > 0xFFFF || uri.length > 0xFFFF || ip.length > 0xFF) {
+            throw new IllegalArgumentException("Hit fields are too long");
+        }
+        return ByteBuffer.allocate(8 + 2 + app.length + 2 + uri.length + 1 + ip.length)
+                .putLong(second)
+                .putShort((short) app.length).put(app)
+                .putShort((short) uri.length).put(uri)
+                .put((byte) ip.length).put(ip)
+                .array();
+    }
+
+    private static EndpointHitDto decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long second = buffer.getLong();
+        String app = readString(buffer, Short.toUnsignedInt(buffer.getShort()), StandardCharsets.UTF_8);
+        String uri = readString(buffer, Short.toUnsignedInt(buffer.getShort()), StandardCharsets.UTF_8);
+        String ip = readString(buffer, Byte.toUnsignedInt(buffer.get()), StandardCharsets.US_ASCII);
+        return new EndpointHitDto(null, app, uri, ip,
+                LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).format(FORMATTER));
+    }
+
+    private static String readString(ByteBuffer buffer, int length, Charset charset) {
+        String value = new String(buffer.array(), buffer.position(), length, charset);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
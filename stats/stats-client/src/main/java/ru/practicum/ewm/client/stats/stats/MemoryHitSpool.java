@@ -0,0 +1,80 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class MemoryHitSpool implements HitSpool {
+    private final ArrayDeque<EndpointHitDto> hits = new ArrayDeque<>();
+    private final int capacity;
+    private int peeked;
+    // выданные peek хиты, вытесненные до commit: потеряны, только если отправка не удалась
+    private int evictedPeeked;
+
+    public MemoryHitSpool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Spool capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized int append(List<EndpointHitDto> newHits) {
+        hits.addAll(newHits);
+        int dropped = 0;
+        while (hits.size() > capacity) {
+            hits.pollFirst();
+            // Хиты из головы могли быть уже выданы через peek и сейчас отправляются
+            if (peeked > 0) {
+                peeked--;
+                evictedPeeked++;
+            } else {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    @Override
+    public synchronized List<EndpointHitDto> peek(int max) {
+        List<EndpointHitDto> list = new ArrayList<>(Math.min(max, hits.size()));
+        Iterator<EndpointHitDto> iterator = hits.iterator();
+        while (list.size() < max && iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        peeked = list.size();
+        return list;
+    }
+
+    @Override
+    public synchronized void commit() {
+        for (; peeked > 0; peeked--) {
+            hits.pollFirst();
+        }
+        evictedPeeked = 0;
+    }
+
+    @Override
+    public synchronized int release() {
+        int lost = evictedPeeked;
+        peeked = 0;
+        evictedPeeked = 0;
+        return lost;
+    }
+
+    @Override
+    public synchronized int size() {
+        return hits.size();
+    }
+
+    @Override
+    public void sync() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
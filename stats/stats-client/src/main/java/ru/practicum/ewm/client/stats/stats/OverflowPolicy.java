@@ -0,0 +1,8 @@
+package ru.practicum.ewm.client.stats.stats;
+
+public enum OverflowPolicy {
+    DROP_OLDEST,
+    BLOCK,
+    // Не поместившиеся в буфер хиты уходят в спул и досылаются при следующих сбросах
+    SPOOL
+}
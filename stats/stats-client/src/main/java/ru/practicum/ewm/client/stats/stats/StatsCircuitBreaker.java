@@ -0,0 +1,79 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Размыкает вызовы stats-сервера после серии неудач подряд: пока цепь разомкнута, клиенты сразу получают отказ,
+ * а по истечении open-ms пропускается один пробный запрос.
+ */
+@Slf4j
+@Component
+public class StatsCircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger failures = new AtomicInteger();
+    private final int failureThreshold;
+    private final long openNanos;
+    private volatile long openedAt;
+
+    @Autowired
+    public StatsCircuitBreaker(MeterRegistry meterRegistry,
+                               @Value("${stats.client.breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${stats.client.breaker.open-ms:10000}") long openMs) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Failure threshold must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+
+        Gauge.builder("stats.client.breaker.open", state, s -> s.get() == State.CLOSED ? 0 : 1)
+                .description("1 while calls to the stats server are short-circuited")
+                .register(meterRegistry);
+    }
+
+    public boolean allowRequest() {
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return System.nanoTime() - openedAt >= openNanos && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            default:
+                // Пробный запрос уже выполняется
+                return false;
+        }
+    }
+
+    public void onSuccess() {
+        failures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("Stats server is available again, circuit closed");
+        }
+    }
+
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || failures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            if (state.getAndSet(State.OPEN) == State.CLOSED) {
+                log.warn("Stats server is unavailable, circuit opened for {} ms", TimeUnit.NANOSECONDS.toMillis(openNanos));
+            }
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+}
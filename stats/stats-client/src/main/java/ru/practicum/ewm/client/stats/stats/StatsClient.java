@@ -1,43 +1,89 @@
 package ru.practicum.ewm.client.stats.stats;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+import ru.practicum.ewm.dto.stats.statsDto.StatsApi;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 
 @Service
 public class StatsClient {
     protected final RestTemplate rest;
+    // Читатель Jackson строится один раз и потокобезопасен
+    private final ObjectReader viewStatsReader;
+    // В режиме stats.client.mode=embedded запросы не уходят по HTTP, а обслуживаются в памяти
+    @Nullable
+    private final StatsApi embedded;
+    private final StatsCircuitBreaker circuitBreaker;
 
     @Autowired
-    public StatsClient(@Value("${STATS_SERVER_URL:http://localhost:9090}") String serverUrl, RestTemplateBuilder builder) {
+    public StatsClient(@Value("${STATS_SERVER_URL:http://localhost:9090}") String serverUrl, RestTemplateBuilder builder,
+                       @Value("${stats.client.connect-timeout-ms:1000}") long connectTimeoutMs,
+                       @Value("${stats.client.request-timeout-ms:3000}") long requestTimeoutMs,
+                       @Value("${stats.client.max-connections:20}") int maxConnections,
+                       ObjectMapper objectMapper, ObjectProvider<StatsApi> embedded,
+                       StatsCircuitBreaker circuitBreaker) {
+        this.embedded = embedded.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+        this.viewStatsReader = objectMapper.readerFor(new TypeReference<List<ViewStats>>() {
+        });
 
         this.rest = builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnections)
+                        .build()))
+                .setConnectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .setReadTimeout(Duration.ofMillis(requestTimeoutMs))
                 .build();
     }
 
     public ResponseEntity<Object> addRequest(String ipResource, EndpointHitDto endpointHitDto) {
+        if (embedded != null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(embedded.addRequest(endpointHitDto));
+        }
         return post("/hit", ipResource, null, endpointHitDto);
     }
 
+    public ResponseEntity<Object> addRequests(List<EndpointHitDto> endpointHitDtos) {
+        if (embedded != null) {
+            embedded.addRequests(endpointHitDtos);
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        }
+        return post("/hit/batch", null, null, endpointHitDtos);
+    }
+
     public ResponseEntity<Object> getStats(String ipResource, String start, String end, String[] uris, boolean unique) {
+        if (embedded != null) {
+            return ResponseEntity.ok(embedded.getStats(start, end, uris, unique, false));
+        }
 
         Map<String, Object> parameters = null;
         if (uris != null) {
@@ -58,6 +104,24 @@ public class StatsClient {
         }
     }
 
+    public List<ViewStats> getViewStats(String ipResource, String start, String end, String[] uris, boolean unique) {
+        if (embedded != null) {
+            return embedded.getStats(start, end, uris, unique, false);
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("start", start);
+        parameters.put("end", end);
+        parameters.put("unique", unique);
+        String path = "/stats?start={start}&end={end}&unique={unique}";
+        if (uris != null) {
+            parameters.put("uris", uris);
+            path += "&uris={uris}";
+        }
+        String uriTemplate = path;
+        return guarded(() -> rest.execute(uriTemplate, HttpMethod.GET, request -> writeHeaders(request.getHeaders(), ipResource),
+                response -> viewStatsReader.readValue(response.getBody()), parameters));
+    }
+
     protected <T> ResponseEntity<Object> post(String path, String ipResource, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, ipResource, parameters, body);
     }
@@ -67,6 +131,9 @@ public class StatsClient {
     }
 
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, String ipResource, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (!circuitBreaker.allowRequest()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(ipResource));
 
         ResponseEntity<Object> statsServerResponse;
@@ -77,19 +144,58 @@ public class StatsClient {
                 statsServerResponse = rest.exchange(path, method, requestEntity, Object.class);
             }
         } catch (HttpStatusCodeException e) {
+            record(e.getStatusCode().is5xxServerError());
             return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        } catch (ResourceAccessException e) {
+            circuitBreaker.onFailure();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (RuntimeException e) {
+            // Непонятный ответ (тип содержимого, тело) тоже неудача: иначе пробный запрос оставит цепь в HALF_OPEN навсегда
+            circuitBreaker.onFailure();
+            throw e;
         }
+        record(statsServerResponse.getStatusCode().is5xxServerError());
         return prepareGatewayResponse(statsServerResponse);
     }
 
+    private <T> T guarded(Supplier<T> call) {
+        if (!circuitBreaker.allowRequest()) {
+            throw new StatsServerException(HttpStatus.SERVICE_UNAVAILABLE.value(), "Stats server circuit is open");
+        }
+        try {
+            T result = call.get();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (HttpStatusCodeException e) {
+            record(e.getStatusCode().is5xxServerError());
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+    }
+
+    // Ответы 4xx говорят об ошибке в запросе, а не о недоступности сервера
+    private void record(boolean failed) {
+        if (failed) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
     private HttpHeaders defaultHeaders(String ipResource) {
         HttpHeaders headers = new HttpHeaders();
+        writeHeaders(headers, ipResource);
+        return headers;
+    }
+
+    private static void writeHeaders(HttpHeaders headers, String ipResource) {
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (ipResource != null) {
             headers.set("X-Stats-Resource-Ip", ipResource);
         }
-        return headers;
     }
 
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
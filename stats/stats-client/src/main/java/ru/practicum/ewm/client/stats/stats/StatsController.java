@@ -13,6 +13,7 @@ import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.UnsupportedEncodingException;
+import java.util.List;
 
 
 @Slf4j
@@ -29,6 +30,12 @@ public class StatsController {
         return statsClient.addRequest(request.getRemoteAddr(), endpointHitDto);
     }
 
+    @PostMapping("/hit/batch")
+    public ResponseEntity<Object> addRequests(@RequestBody List<EndpointHitDto> endpointHitDtos) {
+        log.info("Creating {} requests in batch", endpointHitDtos.size());
+        return statsClient.addRequests(endpointHitDtos);
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<Object> getAll(HttpServletRequest request,
                                          @RequestParam(name = "start") String start,
@@ -0,0 +1,199 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+@Component
+public class StatsHitBuffer {
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final StatsClient statsClient;
+    private final ConcurrentLinkedQueue<EndpointHitDto> queue = new ConcurrentLinkedQueue<>();
+    // Хиты, не доставленные из-за недоступности сервера или не поместившиеся в буфер
+    private final HitSpool spool;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final int capacity;
+    private final int batchSize;
+    private final long offerTimeoutNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Counter droppedHits;
+    private final Counter sentHits;
+
+    @Autowired
+    public StatsHitBuffer(StatsClient statsClient,
+                          MeterRegistry meterRegistry,
+                          @Value("${stats.buffer.capacity:10000}") int capacity,
+                          @Value("${stats.buffer.batch-size:100}") int batchSize,
+                          @Value("${stats.buffer.flush-interval-ms:1000}") long flushIntervalMs,
+                          @Value("${stats.buffer.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+                          @Value("${stats.buffer.offer-timeout-ms:100}") long offerTimeoutMs,
+                          @Value("${stats.buffer.spool-capacity:100000}") int spoolCapacity,
+                          @Value("${stats.buffer.spool-dir:}") String spoolDir,
+                          @Value("${stats.buffer.spool-segment-bytes:16777216}") int spoolSegmentBytes,
+                          @Value("${stats.buffer.spool-max-segments:16}") int spoolMaxSegments) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Buffer capacity and batch size must be positive");
+        }
+        this.statsClient = statsClient;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.spool = spoolDir.isBlank()
+                ? new MemoryHitSpool(spoolCapacity)
+                : new MappedHitSpool(Paths.get(spoolDir), spoolSegmentBytes, spoolMaxSegments);
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+
+        Gauge.builder("stats.buffer.size", size, AtomicInteger::get)
+                .description("Hits waiting to be sent to the stats server")
+                .register(meterRegistry);
+        Gauge.builder("stats.buffer.spooled", spool, HitSpool::size)
+                .description("Hits kept for replay while the stats server is unavailable")
+                .register(meterRegistry);
+        this.droppedHits = Counter.builder("stats.buffer.dropped")
+                .description("Hits discarded because the buffer was full or the stats server rejected them")
+                .register(meterRegistry);
+        this.sentHits = Counter.builder("stats.buffer.sent")
+                .description("Hits delivered to the stats server")
+                .register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-hit-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(EndpointHitDto endpointHitDto) {
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        while (!tryReserve()) {
+            if (overflowPolicy == OverflowPolicy.DROP_OLDEST && queue.poll() != null) {
+                size.decrementAndGet();
+                droppedHits.increment();
+            } else if (overflowPolicy == OverflowPolicy.SPOOL) {
+                droppedHits.increment(spool.append(List.of(endpointHitDto)));
+                return;
+            } else {
+                // Для DROP_OLDEST очередь пуста, а счётчик ещё полон: места заняты хитами, которые
+                // другие потоки добавляют или flush уже забрал; ждём, как при BLOCK, а не крутимся
+                if (System.nanoTime() - deadline > 0) {
+                    droppedHits.increment();
+                    return;
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+        queue.offer(endpointHitDto);
+
+        if (size.get() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        spool.sync();
+        spool.close();
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void flush() {
+        flushRequested.set(false);
+        boolean available = replay();
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (true) {
+            EndpointHitDto endpointHitDto;
+            while (batch.size() < batchSize && (endpointHitDto = queue.poll()) != null) {
+                batch.add(endpointHitDto);
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            size.addAndGet(-batch.size());
+            if (!available || !(available = send(batch))) {
+                droppedHits.increment(spool.append(batch));
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+        spool.sync();
+    }
+
+    // Сначала досылаем отложенные хиты, чтобы сохранить порядок; false - сервер всё ещё недоступен
+    private boolean replay() {
+        List<EndpointHitDto> batch;
+        while (!(batch = spool.peek(batchSize)).isEmpty()) {
+            if (!send(batch)) {
+                droppedHits.increment(spool.release());
+                return false;
+            }
+            spool.commit();
+        }
+        return true;
+    }
+
+    /**
+     * Отправляет пакет; false - сервер недоступен (5xx, сетевая ошибка, разомкнутая цепь) и пакет нужно отложить.
+     * Отклонённые сервером (4xx) хиты отбрасываются.
+     */
+    private boolean send(List<EndpointHitDto> batch) {
+        try {
+            ResponseEntity<Object> response = statsClient.addRequests(batch);
+            if (response.getStatusCode().is2xxSuccessful()) {
+                sentHits.increment(batch.size());
+                return true;
+            }
+            if (response.getStatusCode().is4xxClientError()) {
+                log.warn("Stats server rejected {} hits with status {}", batch.size(), response.getStatusCode());
+                droppedHits.increment(batch.size());
+                return true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to send {} hits to stats server: {}", batch.size(), e.getMessage());
+        }
+        return false;
+    }
+}
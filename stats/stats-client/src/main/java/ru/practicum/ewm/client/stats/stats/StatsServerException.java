@@ -0,0 +1,13 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import lombok.Getter;
+
+@Getter
+public class StatsServerException extends RuntimeException {
+    private final int status;
+
+    public StatsServerException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
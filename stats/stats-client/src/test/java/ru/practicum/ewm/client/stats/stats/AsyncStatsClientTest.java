@@ -0,0 +1,163 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import ru.practicum.ewm.dto.stats.statsDto.StatsApi;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Асинхронный клиент против локального HTTP-сервера: разбор ответа, учёт исходов в StatsCircuitBreaker,
+ * ограничение одновременных запросов и общий срок запроса.
+ */
+class AsyncStatsClientTest {
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<String> lastQuery = new AtomicReference<>();
+    private volatile int status = 200;
+    private volatile String body = "[]";
+    private volatile CountDownLatch release;
+    private volatile boolean stallBody;
+    private StatsCircuitBreaker circuitBreaker;
+    private AsyncStatsClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        circuitBreaker = new StatsCircuitBreaker(new SimpleMeterRegistry(), 2, 60_000);
+        client = new AsyncStatsClient("http://127.0.0.1:" + server.getAddress().getPort() + "/", 1000, 2000, 1, 2,
+                new ObjectMapper(), new StaticListableBeanFactory().getBeanProvider(StatsApi.class), circuitBreaker);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (release != null) {
+            release.countDown();
+        }
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void statsAreParsedAndQueryEncoded() throws Exception {
+        body = "[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"hits\":3}]";
+
+        List<ViewStats> stats = client.getViewStats("10.0.0.1", "2026-10-18 00:00:00", "2026-10-18 12:00:00",
+                new String[]{"/events/1"}, true).get(5, TimeUnit.SECONDS);
+
+        assertThat(stats).containsExactly(new ViewStats("ewm-main-service", "/events/1", 3));
+        assertThat(lastQuery.get()).isEqualTo("start=2026-10-18+00%3A00%3A00&end=2026-10-18+12%3A00%3A00"
+                + "&unique=true&uris=%2Fevents%2F1");
+        assertThat(circuitBreaker.getState()).isEqualTo(StatsCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenCircuit() {
+        status = 400;
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.addHits(List.of()).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(StatsServerException.class);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(StatsCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void serverErrorsOpenCircuitAndFailFast() {
+        status = 503;
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.addHits(List.of()).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(StatsServerException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(StatsCircuitBreaker.State.OPEN);
+
+        CompletableFuture<Void> rejected = client.addHits(List.of());
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentRequestsAreLimited() throws Exception {
+        release = new CountDownLatch(1);
+        CompletableFuture<Void> first = client.addHits(List.of());
+
+        assertThatThrownBy(() -> client.addHits(List.of()).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        // разрешение возвращается после ответа
+        client.addHits(List.of()).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void deadlineBoundsBodyNotOnlyHeaders() {
+        // заголовки приходят сразу, тело - никогда: таймаут HttpClient здесь не срабатывает
+        release = new CountDownLatch(1);
+        stallBody = true;
+
+        assertThatThrownBy(() -> client.getViewStats(null, "a", "b", null, false, Duration.ofMillis(200))
+                .get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        lastQuery.set(exchange.getRequestURI().getRawQuery());
+        exchange.getRequestBody().readAllBytes();
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (stallBody) {
+            exchange.sendResponseHeaders(status, 0);
+            exchange.getResponseBody().flush();
+        }
+        await(release);
+        if (!stallBody) {
+            exchange.sendResponseHeaders(status, response.length);
+        }
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        if (latch == null) {
+            return;
+        }
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
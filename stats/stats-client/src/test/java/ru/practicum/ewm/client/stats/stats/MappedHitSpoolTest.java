@@ -0,0 +1,163 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Дисковый спул: восстановление после падения по checkpoint и CRC, блокировка каталога
+ * и учёт хитов, вытесненных переполнением во время отправки.
+ */
+class MappedHitSpoolTest {
+    private static final int SEGMENT_BYTES = 1024;
+    // 56 байт на запись: 8 заголовок, 48 хит
+    private static final int HITS_PER_SEGMENT = SEGMENT_BYTES / 56;
+
+    @TempDir
+    Path dir;
+
+    private final List<MappedHitSpool> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(MappedHitSpool::close);
+    }
+
+    @Test
+    void secondSpoolInSameDirectoryFailsFast() {
+        MappedHitSpool spool = open();
+
+        assertThatThrownBy(() -> new MappedHitSpool(dir, SEGMENT_BYTES, 2))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("used by another process");
+
+        spool.close();
+        open();
+    }
+
+    @Test
+    void evictedBatchCountsAsDroppedOnlyIfNotDelivered() {
+        MappedHitSpool spool = open();
+        assertThat(spool.append(hits(0, HITS_PER_SEGMENT))).isZero();
+        assertThat(spool.peek(5)).hasSize(5);
+
+        // третий сегмент вытесняет первый, пока его первые 5 хитов отправляются
+        assertThat(spool.append(hits(HITS_PER_SEGMENT, HITS_PER_SEGMENT + 1))).isEqualTo(HITS_PER_SEGMENT - 5);
+        spool.commit();
+
+        assertThat(spool.size()).isEqualTo(HITS_PER_SEGMENT + 1);
+        assertThat(spool.peek(1).get(0).getUri()).isEqualTo(hit(HITS_PER_SEGMENT).getUri());
+
+        assertThat(spool.append(hits(0, HITS_PER_SEGMENT))).isEqualTo(HITS_PER_SEGMENT - 1);
+        // отправка не удалась: вытесненный хит потерян
+        assertThat(spool.release()).isEqualTo(1);
+        assertThat(spool.release()).isZero();
+    }
+
+    @Test
+    void unconfirmedHitsAreReplayedAfterCrash() {
+        MappedHitSpool spool = open();
+        spool.append(hits(0, 5));
+        assertThat(spool.peek(3)).isEqualTo(hits(0, 3));
+
+        // падение во время отправки: commit не вызван
+        spool.close();
+        MappedHitSpool recovered = open();
+
+        assertThat(recovered.size()).isEqualTo(5);
+        assertThat(recovered.peek(10)).isEqualTo(hits(0, 5));
+    }
+
+    @Test
+    void checkpointResumesAfterConfirmedHits() {
+        MappedHitSpool spool = open();
+        spool.append(hits(0, HITS_PER_SEGMENT + 3));
+        spool.peek(HITS_PER_SEGMENT);
+        spool.commit();
+        spool.peek(2);
+        spool.commit();
+
+        spool.close();
+        MappedHitSpool recovered = open();
+
+        assertThat(recovered.size()).isEqualTo(1);
+        assertThat(recovered.peek(10)).isEqualTo(hits(HITS_PER_SEGMENT + 2, 1));
+    }
+
+    @Test
+    void corruptedRecordEndsReplayOfItsSegment() throws IOException {
+        MappedHitSpool spool = open();
+        spool.append(hits(0, 5));
+        spool.close();
+        // повреждённый байт в третьей записи: CRC не сходится
+        corrupt(0, 2 * 56 + 20);
+
+        MappedHitSpool recovered = open();
+
+        assertThat(recovered.size()).isEqualTo(2);
+        assertThat(recovered.peek(10)).isEqualTo(hits(0, 2));
+        // записи после повреждения не всплывают и после новых дописываний
+        recovered.append(hits(100, 1));
+        assertThat(recovered.size()).isEqualTo(3);
+        List<EndpointHitDto> replayed = new ArrayList<>(hits(0, 2));
+        replayed.add(hit(100));
+        assertThat(recovered.peek(10)).isEqualTo(replayed);
+    }
+
+    @Test
+    void tornLengthInOlderSegmentSkipsToNextSegment() throws IOException {
+        MappedHitSpool spool = open();
+        spool.append(hits(0, HITS_PER_SEGMENT + 2));
+        spool.close();
+        // вместо длины пятой записи мусор
+        corrupt(0, 4 * 56);
+
+        MappedHitSpool recovered = open();
+
+        assertThat(recovered.size()).isEqualTo(4 + 2);
+        assertThat(recovered.peek(10)).isEqualTo(hits(0, 4));
+        recovered.commit();
+        assertThat(recovered.peek(10)).isEqualTo(hits(HITS_PER_SEGMENT, 2));
+    }
+
+    private void corrupt(long segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(String.format("hits-%019d.log", segment)),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) (value.get(0) ^ 0x5a)).rewind();
+            channel.write(value, position);
+        }
+    }
+
+    private MappedHitSpool open() {
+        MappedHitSpool spool = new MappedHitSpool(dir, SEGMENT_BYTES, 2);
+        opened.add(spool);
+        return spool;
+    }
+
+    private static List<EndpointHitDto> hits(int from, int count) {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            hits.add(hit(i));
+        }
+        return hits;
+    }
+
+    private static EndpointHitDto hit(int i) {
+        return new EndpointHitDto(null, "ewm-main-service", String.format("/events/%03d", i % 1000),
+                "10.0.0.1", "2026-10-18 12:00:00");
+    }
+}
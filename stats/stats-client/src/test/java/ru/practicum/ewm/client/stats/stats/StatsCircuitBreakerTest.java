@@ -0,0 +1,91 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Переходы CLOSED -> OPEN -> HALF_OPEN -> CLOSED/OPEN и gauge разомкнутой цепи.
+ */
+class StatsCircuitBreakerTest {
+    private static final long OPEN_MS = 50;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatsCircuitBreaker breaker = new StatsCircuitBreaker(meterRegistry, 3, OPEN_MS);
+
+    @Test
+    void opensAfterThresholdOfConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(StatsCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(StatsCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+        assertThat(open()).isEqualTo(1);
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(StatsCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void successfulProbeClosesCircuit() throws InterruptedException {
+        openCircuit();
+        Thread.sleep(OPEN_MS * 2);
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(StatsCircuitBreaker.State.HALF_OPEN);
+        // пока пробный запрос не завершён, остальные отклоняются
+        assertThat(breaker.allowRequest()).isFalse();
+
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(StatsCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(open()).isZero();
+    }
+
+    @Test
+    void failedProbeReopensCircuitForFullInterval() throws InterruptedException {
+        openCircuit();
+        Thread.sleep(OPEN_MS * 2);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        // одной неудачи пробного запроса достаточно
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(StatsCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+        Thread.sleep(OPEN_MS * 2);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void thresholdMustBePositive() {
+        assertThatThrownBy(() -> new StatsCircuitBreaker(meterRegistry, 0, OPEN_MS))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        assertThat(breaker.getState()).isEqualTo(StatsCircuitBreaker.State.OPEN);
+    }
+
+    private double open() {
+        return meterRegistry.get("stats.client.breaker.open").gauge().value();
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClientException;
+import ru.practicum.ewm.dto.stats.statsDto.StatsApi;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Каждый исход запроса к stats-серверу должен доходить до StatsCircuitBreaker.
+ */
+class StatsClientTest {
+    private StatsCircuitBreaker circuitBreaker;
+    private StatsClient statsClient;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        // Цепь размыкается после первой неудачи и сразу пропускает пробный запрос
+        circuitBreaker = new StatsCircuitBreaker(new SimpleMeterRegistry(), 1, 0);
+        statsClient = new StatsClient("http://stats", new RestTemplateBuilder(), 1000, 1000, 1, new ObjectMapper(),
+                new StaticListableBeanFactory().getBeanProvider(StatsApi.class), circuitBreaker);
+        server = MockRestServiceServer.bindTo(statsClient.rest).build();
+    }
+
+    @Test
+    void unreadableProbeResponseReopensCircuit() {
+        server.expect(requestTo("http://stats/hit/batch")).andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+        server.expect(requestTo("http://stats/hit/batch")).andRespond(withSuccess("<html/>", MediaType.TEXT_HTML));
+        server.expect(requestTo("http://stats/hit/batch")).andRespond(withStatus(HttpStatus.CREATED));
+
+        statsClient.addRequests(List.of());
+        assertThat(circuitBreaker.getState()).isEqualTo(StatsCircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> statsClient.addRequests(List.of())).isInstanceOf(RestClientException.class);
+        assertThat(circuitBreaker.getState()).isEqualTo(StatsCircuitBreaker.State.OPEN);
+
+        // Следующий пробный запрос снова доходит до сервера и замыкает цепь
+        assertThat(statsClient.addRequests(List.of()).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(circuitBreaker.getState()).isEqualTo(StatsCircuitBreaker.State.CLOSED);
+        server.verify();
+    }
+}
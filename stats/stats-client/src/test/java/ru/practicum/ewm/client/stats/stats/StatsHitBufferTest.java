@@ -0,0 +1,152 @@
+package ru.practicum.ewm.client.stats.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Буфер хитов: отправка пакетами, откладывание в спул при недоступном сервере и учёт отброшенных хитов.
+ */
+class StatsHitBufferTest {
+    private static final long NEVER = 3_600_000;
+
+    private StatsClient statsClient;
+    private SimpleMeterRegistry meterRegistry;
+    private StatsHitBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        statsClient = mock(StatsClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForInterval() {
+        respond(HttpStatus.CREATED);
+        buffer = buffer(10, 3, OverflowPolicy.DROP_OLDEST);
+
+        buffer.add(hit(1));
+        buffer.add(hit(2));
+        buffer.add(hit(3));
+
+        verify(statsClient, timeout(5000)).addRequests(List.of(hit(1), hit(2), hit(3)));
+        stop();
+        assertThat(counter("stats.buffer.sent")).isEqualTo(3);
+    }
+
+    @Test
+    void unavailableServerSpoolsHitsAndReplaysThemFirst() {
+        when(statsClient.addRequests(anyList()))
+                .thenAnswer(invocation -> {
+                    // пока первая отправка висит, приходят новые хиты
+                    buffer.add(hit(3));
+                    buffer.add(hit(4));
+                    return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+                })
+                .thenReturn(new ResponseEntity<>(HttpStatus.CREATED));
+        buffer = buffer(10, 2, OverflowPolicy.DROP_OLDEST);
+
+        buffer.add(hit(1));
+        buffer.add(hit(2));
+
+        InOrder order = inOrder(statsClient);
+        order.verify(statsClient, timeout(5000).times(2)).addRequests(List.of(hit(1), hit(2)));
+        order.verify(statsClient, timeout(5000)).addRequests(List.of(hit(3), hit(4)));
+        stop();
+        assertThat(meterRegistry.get("stats.buffer.spooled").gauge().value()).isZero();
+        assertThat(counter("stats.buffer.dropped")).isZero();
+        assertThat(counter("stats.buffer.sent")).isEqualTo(4);
+    }
+
+    @Test
+    void dropOldestDiscardsHeadOfFullBuffer() {
+        respond(HttpStatus.CREATED);
+        buffer = buffer(2, 100, OverflowPolicy.DROP_OLDEST);
+
+        buffer.add(hit(1));
+        buffer.add(hit(2));
+        buffer.add(hit(3));
+        assertThat(counter("stats.buffer.dropped")).isEqualTo(1);
+
+        stop();
+        verify(statsClient).addRequests(List.of(hit(2), hit(3)));
+    }
+
+    @Test
+    void spoolPolicyKeepsOverflowForReplay() {
+        respond(HttpStatus.CREATED);
+        buffer = buffer(1, 100, OverflowPolicy.SPOOL);
+
+        buffer.add(hit(1));
+        buffer.add(hit(2));
+        assertThat(meterRegistry.get("stats.buffer.spooled").gauge().value()).isEqualTo(1);
+        verify(statsClient, never()).addRequests(anyList());
+
+        // отложенные хиты досылаются раньше очереди
+        stop();
+        InOrder order = inOrder(statsClient);
+        order.verify(statsClient).addRequests(List.of(hit(2)));
+        order.verify(statsClient).addRequests(List.of(hit(1)));
+        assertThat(counter("stats.buffer.dropped")).isZero();
+    }
+
+    @Test
+    void rejectedHitsAreDroppedNotSpooled() {
+        respond(HttpStatus.BAD_REQUEST);
+        buffer = buffer(10, 2, OverflowPolicy.DROP_OLDEST);
+
+        buffer.add(hit(1));
+        buffer.add(hit(2));
+
+        verify(statsClient, timeout(5000)).addRequests(List.of(hit(1), hit(2)));
+        stop();
+        assertThat(counter("stats.buffer.dropped")).isEqualTo(2);
+        assertThat(meterRegistry.get("stats.buffer.spooled").gauge().value()).isZero();
+    }
+
+    // Дожидается фонового сброса и досылает остаток
+    private void stop() {
+        buffer.shutdown();
+        buffer = null;
+    }
+
+    private StatsHitBuffer buffer(int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        return new StatsHitBuffer(statsClient, meterRegistry, capacity, batchSize, NEVER, overflowPolicy, 0,
+                100, "", 16 * 1024 * 1024, 16);
+    }
+
+    private void respond(HttpStatus status) {
+        when(statsClient.addRequests(anyList())).thenReturn(new ResponseEntity<>(status));
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private static EndpointHitDto hit(int i) {
+        return new EndpointHitDto(null, "ewm-main-service", "/events/" + i, "10.0.0." + i, "2026-10-18 12:00:00");
+    }
+}
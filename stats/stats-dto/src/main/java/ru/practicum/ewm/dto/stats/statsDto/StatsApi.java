@@ -0,0 +1,16 @@
+package ru.practicum.ewm.dto.stats.statsDto;
+
+import java.util.List;
+
+/**
+ * Operations of the stats server, shared by the server itself and the embedded in-memory stand-in in stats-client.
+ * Times are in the "yyyy-MM-dd HH:mm:ss" format.
+ */
+public interface StatsApi {
+
+    EndpointHitDto addRequest(EndpointHitDto endpointHitDto);
+
+    void addRequests(List<EndpointHitDto> endpointHitDtos);
+
+    List<ViewStats> getStats(String start, String end, String[] uris, boolean unique, boolean approximate);
+}
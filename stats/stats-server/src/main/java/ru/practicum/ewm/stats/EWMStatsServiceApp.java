@@ -2,9 +2,11 @@ package ru.practicum.ewm.stats;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class EWMStatsServiceApp {
     public static void main(String[] args) {
         SpringApplication.run(EWMStatsServiceApp.class, args);
@@ -0,0 +1,153 @@
+package ru.practicum.ewm.stats;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+// IP хранится в 16 байтах: IPv6 как есть, IPv4 в виде ::ffff:a.b.c.d.
+// Разбираются только литералы адресов и имя localhost (сохраняется как 127.0.0.1), DNS не используется:
+// резолвинг на каждом хите зависел бы от сети. Невалидная строка - IllegalArgumentException (400)
+public final class IpAddresses {
+    private static final int LENGTH = 16;
+    private static final String LOCALHOST = "localhost";
+
+    private IpAddresses() {
+    }
+
+    public static byte[] toBytes(String ip) {
+        if (ip == null) {
+            throw new IllegalArgumentException("IP address is required");
+        }
+        if (LOCALHOST.equalsIgnoreCase(ip)) {
+            return mapIpv4(new byte[]{127, 0, 0, 1}, ip);
+        }
+        if (ip.indexOf(':') < 0) {
+            return mapIpv4(parseIpv4(ip), ip);
+        }
+        return parseIpv6(ip);
+    }
+
+    public static String toString(byte[] ip) {
+        if (ip == null || ip.length != LENGTH) {
+            throw new IllegalArgumentException("Invalid stored IP address");
+        }
+        if (isMappedIpv4(ip)) {
+            return (ip[12] & 0xff) + "." + (ip[13] & 0xff) + "." + (ip[14] & 0xff) + "." + (ip[15] & 0xff);
+        }
+        try {
+            return InetAddress.getByAddress(ip).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid stored IP address");
+        }
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid IP address " + ip);
+        }
+        byte[] address = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3) {
+                throw new IllegalArgumentException("Invalid IP address " + ip);
+            }
+            int value = 0;
+            for (int j = 0; j < part.length(); j++) {
+                char c = part.charAt(j);
+                if (c < '0' || c > '9') {
+                    throw new IllegalArgumentException("Invalid IP address " + ip);
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (value > 255) {
+                throw new IllegalArgumentException("Invalid IP address " + ip);
+            }
+            address[i] = (byte) value;
+        }
+        return address;
+    }
+
+    // Строгий разбор IPv6-литерала (RFC 4291, без zone id): InetAddress.getByName ушёл бы в DNS на строке вроде "foo:bar"
+    private static byte[] parseIpv6(String ip) {
+        int compression = ip.indexOf("::");
+        if (compression >= 0 && ip.indexOf("::", compression + 1) >= 0) {
+            throw new IllegalArgumentException("Invalid IP address " + ip);
+        }
+        List<Integer> head = compression < 0
+                ? parseIpv6Groups(ip, true, ip)
+                : parseIpv6Groups(ip.substring(0, compression), false, ip);
+        List<Integer> tail = compression < 0
+                ? new ArrayList<>()
+                : parseIpv6Groups(ip.substring(compression + 2), true, ip);
+        int groups = head.size() + tail.size();
+        if (compression < 0 ? groups != 8 : groups > 7) {
+            throw new IllegalArgumentException("Invalid IP address " + ip);
+        }
+
+        byte[] address = new byte[LENGTH];
+        for (int i = 0; i < head.size(); i++) {
+            address[2 * i] = (byte) (head.get(i) >> 8);
+            address[2 * i + 1] = head.get(i).byteValue();
+        }
+        for (int i = 0; i < tail.size(); i++) {
+            int group = 8 - tail.size() + i;
+            address[2 * group] = (byte) (tail.get(i) >> 8);
+            address[2 * group + 1] = tail.get(i).byteValue();
+        }
+        return address;
+    }
+
+    // Группы по 1-4 шестнадцатеричные цифры; в конце адреса допускается IPv4 (::ffff:1.2.3.4)
+    private static List<Integer> parseIpv6Groups(String part, boolean last, String ip) {
+        List<Integer> groups = new ArrayList<>();
+        if (part.isEmpty()) {
+            return groups;
+        }
+        String[] tokens = part.split(":", -1);
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (last && i == tokens.length - 1 && token.indexOf('.') >= 0) {
+                byte[] ipv4 = parseIpv4(token);
+                groups.add((ipv4[0] & 0xff) << 8 | (ipv4[1] & 0xff));
+                groups.add((ipv4[2] & 0xff) << 8 | (ipv4[3] & 0xff));
+                continue;
+            }
+            if (token.isEmpty() || token.length() > 4) {
+                throw new IllegalArgumentException("Invalid IP address " + ip);
+            }
+            int value = 0;
+            for (int j = 0; j < token.length(); j++) {
+                char c = token.charAt(j);
+                int digit = c <= 'f' ? Character.digit(c, 16) : -1;
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Invalid IP address " + ip);
+                }
+                value = value * 16 + digit;
+            }
+            groups.add(value);
+        }
+        return groups;
+    }
+
+    private static byte[] mapIpv4(byte[] ipv4, String ip) {
+        if (ipv4.length != 4) {
+            throw new IllegalArgumentException("Invalid IP address " + ip);
+        }
+        byte[] address = new byte[LENGTH];
+        address[10] = (byte) 0xff;
+        address[11] = (byte) 0xff;
+        System.arraycopy(ipv4, 0, address, 12, 4);
+        return address;
+    }
+
+    private static boolean isMappedIpv4(byte[] ip) {
+        for (int i = 0; i < 10; i++) {
+            if (ip[i] != 0) {
+                return false;
+            }
+        }
+        return ip[10] == (byte) 0xff && ip[11] == (byte) 0xff;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.ewm.stats.Service;
+
+public enum Granularity {
+    RAW,
+    MINUTE,
+    HOUR
+}
@@ -0,0 +1,78 @@
+package ru.practicum.ewm.stats.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.repository.CompactionRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// Хиты и минутные агрегаты уже учтены в часовых агрегатах и HLL-скетчах при записи,
+// поэтому сжатие сводится к сдвигу watermark и удалению старых строк по часу за раз,
+// внутри часа - пакетами не больше batch-size строк, каждый в своей транзакции
+@Slf4j
+@Component
+public class StatsCompactor {
+    private final CompactionRepository compactionRepository;
+    private final StatsResultCache statsResultCache;
+    private final int horizonHours;
+    private final int batchSize;
+
+    @Autowired
+    public StatsCompactor(CompactionRepository compactionRepository,
+                          StatsResultCache statsResultCache,
+                          @Value("${stats.compaction.horizon-hours:0}") int horizonHours,
+                          @Value("${stats.compaction.batch-size:10000}") int batchSize) {
+        this.compactionRepository = compactionRepository;
+        this.statsResultCache = statsResultCache;
+        this.horizonHours = horizonHours;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${stats.compaction.cron:0 15 * * * *}")
+    public void compact() {
+        if (horizonHours <= 0) {
+            return;
+        }
+        // второй экземпляр пропускает запуск, а не удаляет те же строки параллельно
+        if (!compactionRepository.runExclusively(this::compactBefore)) {
+            log.info("Stats compaction skipped: running on another instance");
+        }
+    }
+
+    private void compactBefore() {
+        LocalDateTime horizon = LocalDateTime.now().minusHours(horizonHours).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime watermark = compactionRepository.getWatermark();
+        if (watermark == null || watermark.isBefore(horizon)) {
+            // Сначала watermark: запросы переключаются на часовые агрегаты до того, как пропадут сырые данные
+            compactionRepository.setWatermark(horizon);
+            // старые окна теперь считаются с точностью до часа
+            statsResultCache.clear();
+        }
+
+        int hits = 0;
+        LocalDateTime from = compactionRepository.findOldestHit(horizon);
+        for (; from != null && from.isBefore(horizon); from = from.plusHours(1)) {
+            LocalDateTime hour = from.truncatedTo(ChronoUnit.HOURS);
+            int deleted;
+            do {
+                deleted = compactionRepository.deleteHits(hour, hour.plusHours(1), batchSize);
+                hits += deleted;
+            } while (deleted >= batchSize);
+        }
+        int buckets = 0;
+        from = compactionRepository.findOldestMinuteBucket(horizon);
+        for (; from != null && from.isBefore(horizon); from = from.plusHours(1)) {
+            LocalDateTime hour = from.truncatedTo(ChronoUnit.HOURS);
+            int deleted;
+            do {
+                deleted = compactionRepository.deleteMinuteBuckets(hour, hour.plusHours(1), batchSize);
+                buckets += deleted;
+            } while (deleted >= batchSize);
+        }
+        log.info("Compacted stats before {}: {} hits and {} minute buckets deleted", horizon, hits, buckets);
+    }
+}
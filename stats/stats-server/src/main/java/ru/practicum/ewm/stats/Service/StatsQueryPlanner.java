@@ -0,0 +1,104 @@
+package ru.practicum.ewm.stats.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StatsQueryPlanner {
+
+    private StatsQueryPlanner() {
+    }
+
+    /**
+     * Splits [start, end] into the widest buckets that fit completely inside it:
+     * whole hours in the middle, whole minutes around them and raw hits only at the edges.
+     */
+    public static List<StatsSegment> plan(LocalDateTime start, LocalDateTime end) {
+        return plan(start, end, null);
+    }
+
+    /**
+     * Like {@link #plan(LocalDateTime, LocalDateTime)}, but before {@code compactedBefore} only hour buckets
+     * are left, so that part of the window is widened to whole hours.
+     */
+    public static List<StatsSegment> plan(LocalDateTime start, LocalDateTime end, LocalDateTime compactedBefore) {
+        LocalDateTime endExclusive = end.plusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+        List<StatsSegment> segments = new ArrayList<>();
+        start = addCompacted(segments, start, endExclusive, compactedBefore);
+        if (!start.isBefore(endExclusive)) {
+            return segments;
+        }
+
+        LocalDateTime minuteStart = ceil(start, ChronoUnit.MINUTES);
+        LocalDateTime minuteEnd = endExclusive.truncatedTo(ChronoUnit.MINUTES);
+        if (!minuteStart.isBefore(minuteEnd)) {
+            add(segments, Granularity.RAW, start, endExclusive);
+            return segments;
+        }
+
+        LocalDateTime hourStart = ceil(minuteStart, ChronoUnit.HOURS);
+        LocalDateTime hourEnd = minuteEnd.truncatedTo(ChronoUnit.HOURS);
+
+        add(segments, Granularity.RAW, start, minuteStart);
+        if (hourStart.isBefore(hourEnd)) {
+            add(segments, Granularity.MINUTE, minuteStart, hourStart);
+            add(segments, Granularity.HOUR, hourStart, hourEnd);
+            add(segments, Granularity.MINUTE, hourEnd, minuteEnd);
+        } else {
+            add(segments, Granularity.MINUTE, minuteStart, minuteEnd);
+        }
+        add(segments, Granularity.RAW, minuteEnd, endExclusive);
+        return segments;
+    }
+
+    /**
+     * Same as {@link #plan} but without minute buckets, for data that is only kept per hour.
+     */
+    public static List<StatsSegment> planHourly(LocalDateTime start, LocalDateTime end) {
+        return planHourly(start, end, null);
+    }
+
+    public static List<StatsSegment> planHourly(LocalDateTime start, LocalDateTime end, LocalDateTime compactedBefore) {
+        LocalDateTime endExclusive = end.plusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+        List<StatsSegment> segments = new ArrayList<>();
+        start = addCompacted(segments, start, endExclusive, compactedBefore);
+        if (!start.isBefore(endExclusive)) {
+            return segments;
+        }
+
+        LocalDateTime hourStart = ceil(start, ChronoUnit.HOURS);
+        LocalDateTime hourEnd = endExclusive.truncatedTo(ChronoUnit.HOURS);
+        if (!hourStart.isBefore(hourEnd)) {
+            add(segments, Granularity.RAW, start, endExclusive);
+            return segments;
+        }
+
+        add(segments, Granularity.RAW, start, hourStart);
+        add(segments, Granularity.HOUR, hourStart, hourEnd);
+        add(segments, Granularity.RAW, hourEnd, endExclusive);
+        return segments;
+    }
+
+    // Возвращает начало оставшейся (не сжатой) части окна
+    private static LocalDateTime addCompacted(List<StatsSegment> segments, LocalDateTime start,
+                                              LocalDateTime endExclusive, LocalDateTime compactedBefore) {
+        if (compactedBefore == null || !start.isBefore(compactedBefore)) {
+            return start;
+        }
+        LocalDateTime compactedEnd = endExclusive.isBefore(compactedBefore) ? endExclusive : compactedBefore;
+        add(segments, Granularity.HOUR, start.truncatedTo(ChronoUnit.HOURS), ceil(compactedEnd, ChronoUnit.HOURS));
+        return compactedEnd;
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime truncated = time.truncatedTo(unit);
+        return truncated.equals(time) ? truncated : truncated.plus(1, unit);
+    }
+
+    private static void add(List<StatsSegment> segments, Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            segments.add(new StatsSegment(granularity, from, to));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ru.practicum.ewm.stats.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// LRU-кэш ответов /stats. Окна, закончившиеся до момента кэширования, хранятся бессрочно
+// и сбрасываются только запоздавшими хитами, попавшими в окно; окна, захватывающие "сейчас", живут recent-ttl-ms
+@Component
+public class StatsResultCache {
+    private static final int MAX_INVALIDATIONS = 1024;
+
+    private final int maxSize;
+    private final long recentTtlMs;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final ArrayDeque<Invalidation> invalidations = new ArrayDeque<>();
+    private long generation;
+    private LocalDateTime latestClosedEnd;
+
+    @Autowired
+    public StatsResultCache(MeterRegistry meterRegistry,
+                            @Value("${stats.cache.max-size:1000}") int maxSize,
+                            @Value("${stats.cache.recent-ttl-ms:5000}") long recentTtlMs) {
+        this.maxSize = maxSize;
+        this.recentTtlMs = recentTtlMs;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > StatsResultCache.this.maxSize;
+            }
+        };
+
+        Gauge.builder("stats.cache.size", this, StatsResultCache::size)
+                .description("Cached /stats results")
+                .register(meterRegistry);
+        this.hits = Counter.builder("stats.cache.requests").tag("result", "hit")
+                .description("/stats requests answered from the cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("stats.cache.requests").tag("result", "miss")
+                .description("/stats requests that went to the database")
+                .register(meterRegistry);
+    }
+
+    public static Key key(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique, boolean approximate) {
+        List<String> normalizedUris = null;
+        if (uris != null) {
+            String[] sorted = Arrays.stream(uris).distinct().sorted().toArray(String[]::new);
+            normalizedUris = Arrays.asList(sorted);
+        }
+        return new Key(start, end, normalizedUris, unique, approximate);
+    }
+
+    public synchronized List<ViewStats> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && (entry.expiresAt == 0 || System.currentTimeMillis() < entry.expiresAt)) {
+            hits.increment();
+            return entry.value;
+        }
+        if (entry != null) {
+            entries.remove(key);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Returns a token for {@link #put}: a result computed after it was taken is stored only
+     * if no hit committed in the meantime falls into its window.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(Key key, List<ViewStats> value, long generation) {
+        if (maxSize <= 0 || invalidatedSince(key, generation)) {
+            return;
+        }
+        boolean closed = key.end.isBefore(LocalDateTime.now());
+        long expiresAt = closed ? 0 : System.currentTimeMillis() + recentTtlMs;
+        entries.put(key, new Entry(Collections.unmodifiableList(value), expiresAt));
+        if (closed && (latestClosedEnd == null || key.end.isAfter(latestClosedEnd))) {
+            latestClosedEnd = key.end;
+        }
+    }
+
+    /**
+     * Drops closed windows that contain hits with timestamps in [from, to].
+     */
+    public synchronized void invalidate(LocalDateTime from, LocalDateTime to) {
+        record(from, to);
+        if (latestClosedEnd == null || from.isAfter(latestClosedEnd)) {
+            return;
+        }
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Key key = iterator.next().getKey();
+            if (!key.start.isAfter(to) && !key.end.isBefore(from)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        record(LocalDateTime.MIN, LocalDateTime.MAX);
+        entries.clear();
+        latestClosedEnd = null;
+    }
+
+    // Диапазоны последних сбросов: результат, посчитанный до сброса, нельзя класть в кэш, если его окно задето
+    private void record(LocalDateTime from, LocalDateTime to) {
+        generation++;
+        invalidations.addLast(new Invalidation(generation, from, to));
+        if (invalidations.size() > MAX_INVALIDATIONS) {
+            invalidations.removeFirst();
+        }
+    }
+
+    private boolean invalidatedSince(Key key, long generation) {
+        if (generation == this.generation) {
+            return false;
+        }
+        if (invalidations.isEmpty() || invalidations.getFirst().generation > generation + 1) {
+            // история уже вытеснена, проверить нельзя
+            return true;
+        }
+        for (Invalidation invalidation : invalidations) {
+            if (invalidation.generation > generation
+                    && !key.start.isAfter(invalidation.to) && !key.end.isBefore(invalidation.from)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    @EqualsAndHashCode
+    public static class Key {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final List<String> uris;
+        private final boolean unique;
+        private final boolean approximate;
+
+        private Key(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique, boolean approximate) {
+            this.start = start;
+            this.end = end;
+            this.uris = uris;
+            this.unique = unique;
+            this.approximate = approximate;
+        }
+    }
+
+    private static class Invalidation {
+        private final long generation;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        Invalidation(long generation, LocalDateTime from, LocalDateTime to) {
+            this.generation = generation;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static class Entry {
+        private final List<ViewStats> value;
+        private final long expiresAt; // 0 - бессрочно
+
+        Entry(List<ViewStats> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.ewm.stats.Service;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class StatsSegment {
+
+    private final Granularity granularity;
+    private final LocalDateTime from;  // включительно
+    private final LocalDateTime to;    // не включительно
+}
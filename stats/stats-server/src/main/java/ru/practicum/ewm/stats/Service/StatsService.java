@@ -1,13 +1,15 @@
 package ru.practicum.ewm.stats.Service;
 
-import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+import ru.practicum.ewm.dto.stats.statsDto.StatsApi;
 import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
 
 import java.util.List;
+import java.util.function.Consumer;
 
-public interface StatsService {
+public interface StatsService extends StatsApi {
 
-    EndpointHitDto addRequest(EndpointHitDto endpointHitDto);
+    void streamStats(String start, String end, String[] uris, boolean unique, boolean approximate,
+                     Consumer<ViewStats> consumer);
 
-    List<ViewStats> getStats(String start, String end, String[] uris, boolean unique);
+    List<ViewStats> getTopStats(String start, String end, int n, boolean unique, boolean exact);
 }
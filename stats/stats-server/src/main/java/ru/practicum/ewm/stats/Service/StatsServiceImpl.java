@@ -4,10 +4,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
 import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
 import ru.practicum.ewm.stats.StatsMapper;
 import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.repository.CompactionRepository;
+import ru.practicum.ewm.stats.repository.RollupRepository;
+import ru.practicum.ewm.stats.repository.SketchRepository;
+import ru.practicum.ewm.stats.repository.StatsDictionary;
 import ru.practicum.ewm.stats.repository.StatsRepository;
 
 import java.io.UnsupportedEncodingException;
@@ -15,58 +21,183 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class StatsServiceImpl implements StatsService {
+    private static final int TOP_UNIQUE_CANDIDATES = 10;
+
     private final StatsRepository statsRepository;
+    private final RollupRepository rollupRepository;
+    private final SketchRepository sketchRepository;
+    private final CompactionRepository compactionRepository;
+    private final StatsDictionary statsDictionary;
+    private final TopUriTracker topUriTracker;
+    private final StatsResultCache statsResultCache;
 
     @Autowired
-    public StatsServiceImpl(StatsRepository statsRepository) {
+    public StatsServiceImpl(StatsRepository statsRepository,
+                            RollupRepository rollupRepository,
+                            SketchRepository sketchRepository,
+                            CompactionRepository compactionRepository,
+                            StatsDictionary statsDictionary,
+                            TopUriTracker topUriTracker,
+                            StatsResultCache statsResultCache) {
         this.statsRepository = statsRepository;
+        this.rollupRepository = rollupRepository;
+        this.sketchRepository = sketchRepository;
+        this.compactionRepository = compactionRepository;
+        this.statsDictionary = statsDictionary;
+        this.topUriTracker = topUriTracker;
+        this.statsResultCache = statsResultCache;
     }
 
     @Transactional
     @Override
     public EndpointHitDto addRequest(EndpointHitDto endpointHitDto) {
         EndpointHit endpointHit = StatsMapper.toEndpointHit(endpointHitDto);
+        statsDictionary.encode(Collections.singletonList(endpointHit));
+        endpointHit = statsRepository.save(endpointHit);
+        rollupRepository.addHits(Collections.singletonList(endpointHit));
+        sketchRepository.addHits(Collections.singletonList(endpointHit));
+        afterCommit(Collections.singletonList(endpointHit));
+
+        return StatsMapper.toEndpointHitDto(endpointHit);
+    }
+
+    @Transactional
+    @Override
+    public void addRequests(List<EndpointHitDto> endpointHitDtos) {
+        List<EndpointHit> endpointHits = endpointHitDtos.stream()
+                .map(StatsMapper::toEndpointHit)
+                .collect(Collectors.toList());
 
-        return StatsMapper.toEndpointHitDto(statsRepository.save(endpointHit));
+        statsDictionary.encode(endpointHits);
+        statsRepository.saveAllBatch(endpointHits);
+        rollupRepository.addHits(endpointHits);
+        sketchRepository.addHits(endpointHits);
+        afterCommit(endpointHits);
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<ViewStats> getStats(String start, String end, String[] uris, boolean unique) {
+    public List<ViewStats> getStats(String start, String end, String[] uris, boolean unique, boolean approximate) {
+        LocalDateTime startTime = parse(start);
+        LocalDateTime endTime = parse(end);
+        StatsResultCache.Key key = StatsResultCache.key(startTime, endTime, uris, unique, approximate);
+        List<ViewStats> cached = statsResultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
 
-        LocalDateTime startTime = null;
-        LocalDateTime endTime = null;
-        try {
-            startTime = LocalDateTime.parse(URLDecoder.decode(start, StandardCharsets.UTF_8.toString()), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            endTime = LocalDateTime.parse(URLDecoder.decode(end, StandardCharsets.UTF_8.toString()), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
+        long generation = statsResultCache.generation();
+        List<ViewStats> list = new ArrayList<>();
+        stream(startTime, endTime, uris, unique, approximate, null, list::add);
+        statsResultCache.put(key, list, generation);
+        return list;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamStats(String start, String end, String[] uris, boolean unique, boolean approximate,
+                            Consumer<ViewStats> consumer) {
+        stream(parse(start), parse(end), uris, unique, approximate, null, consumer);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ViewStats> getTopStats(String start, String end, int n, boolean unique, boolean exact) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        LocalDateTime startTime = parse(start);
+        LocalDateTime endTime = parse(end);
+        List<ViewStats> list = new ArrayList<>();
+        if (exact || !topUriTracker.covers(startTime)) {
+            stream(startTime, endTime, null, unique, false, n, list::add);
+            return list;
         }
+
+        if (!unique) {
+            for (Map.Entry<Long, Long> entry : topUriTracker.top(startTime, endTime, n)) {
+                list.add(statsDictionary.toViewStats(TopUriTracker.appId(entry.getKey()),
+                        TopUriTracker.uriId(entry.getKey()), entry.getValue()));
+            }
+            return list;
+        }
+        // Уникальные ip считаются по скетчам только для кандидатов из самых посещаемых uri
+        List<Map.Entry<Long, Long>> candidates = topUriTracker.top(startTime, endTime, n * TOP_UNIQUE_CANDIDATES);
+        if (candidates.isEmpty()) {
+            return list;
+        }
+        String[] uris = candidates.stream()
+                .map(entry -> statsDictionary.toViewStats(TopUriTracker.appId(entry.getKey()),
+                        TopUriTracker.uriId(entry.getKey()), entry.getValue()).getUri())
+                .distinct()
+                .toArray(String[]::new);
+        stream(startTime, endTime, uris, true, true, n, list::add);
+        return list;
+    }
+
+    private void stream(LocalDateTime startTime, LocalDateTime endTime, String[] uris, boolean unique,
+                        boolean approximate, Integer limit, Consumer<ViewStats> consumer) {
         if (endTime.isBefore(startTime)) {
             throw new IllegalArgumentException("End before start");
         }
 
-        List<ViewStats> list = null;
+        LocalDateTime compactedBefore = compactionRepository.getWatermark();
+        // Сырых хитов до watermark уже нет, точный подсчёт уникальных там невозможен
+        boolean compacted = compactedBefore != null && startTime.isBefore(compactedBefore);
 
         if (!unique) { //Нужно ли учитывать только уникальные посещения (только с уникальным ip)
-            if (uris != null) {
-                list = statsRepository.requestStats(startTime, endTime, uris);
-            } else {
-                list = statsRepository.requestAllStats(startTime, endTime);
-            }
+            rollupRepository.streamStats(StatsQueryPlanner.plan(startTime, endTime, compactedBefore), uris, limit, consumer);
+        } else if (approximate || compacted) {
+            // скетчи объединяются в памяти, размер ограничен числом пар app/uri
+            List<ViewStats> list = sketchRepository.requestUniqueStats(
+                    StatsQueryPlanner.planHourly(startTime, endTime, compactedBefore), uris);
+            (limit != null && list.size() > limit ? list.subList(0, limit) : list).forEach(consumer);
         } else {
+            List<Integer> uriIds = null;
             if (uris != null) {
-                list = statsRepository.requestUniqueIpStats(startTime, endTime, uris);
-            } else {
-                list = statsRepository.requestUniqueIpAllStats(startTime, endTime);
+                uriIds = statsDictionary.findUriIds(uris);
+                if (uriIds.isEmpty()) {
+                    return;
+                }
             }
+            statsRepository.streamUniqueIpStats(startTime, endTime, uriIds, limit, hitCount -> consumer.accept(
+                    statsDictionary.toViewStats(hitCount.getAppId(), hitCount.getUriId(), hitCount.getHits())));
+        }
+    }
+
+    // Кэш и топ обновляются только после коммита: иначе параллельный getStats мог бы закэшировать результат
+    // без ещё не записанных хитов, а откатившийся пакет остался бы в топе
+    private void afterCommit(List<EndpointHit> endpointHits) {
+        if (endpointHits.isEmpty()) {
+            return;
+        }
+        LocalDateTime from = endpointHits.stream().map(EndpointHit::getTimestamp).min(LocalDateTime::compareTo).get();
+        LocalDateTime to = endpointHits.stream().map(EndpointHit::getTimestamp).max(LocalDateTime::compareTo).get();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                topUriTracker.addHits(endpointHits);
+                statsResultCache.invalidate(from, to);
+            }
+        });
+    }
+
+    private static LocalDateTime parse(String time) {
+        try {
+            return LocalDateTime.parse(URLDecoder.decode(time, StandardCharsets.UTF_8.toString()), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException(e);
         }
-        return list;
     }
 
-}
\ No newline at end of file
+}
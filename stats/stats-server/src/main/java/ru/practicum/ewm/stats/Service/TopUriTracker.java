@@ -0,0 +1,96 @@
+package ru.practicum.ewm.stats.Service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.sketch.SpaceSaving;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Самые посещаемые пары app/uri по часам, в памяти этого экземпляра сервера.
+// Часы до запуска и старше retention-hours не покрыты, для них нужен запрос к БД
+@Component
+public class TopUriTracker {
+    private final ConcurrentSkipListMap<LocalDateTime, SpaceSaving> buckets = new ConcurrentSkipListMap<>();
+    private final int capacity;
+    private final int retentionHours;
+    private final LocalDateTime trackedSince;
+
+    @Autowired
+    public TopUriTracker(@Value("${stats.top.capacity:1000}") int capacity,
+                         @Value("${stats.top.retention-hours:168}") int retentionHours) {
+        this.capacity = capacity;
+        this.retentionHours = retentionHours;
+        // текущий час виден не полностью: хиты до запуска не учтены
+        this.trackedSince = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+    }
+
+    public void addHits(List<EndpointHit> endpointHits) {
+        for (EndpointHit endpointHit : endpointHits) {
+            LocalDateTime hour = endpointHit.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+            SpaceSaving bucket = buckets.computeIfAbsent(hour, h -> new SpaceSaving(capacity));
+            synchronized (bucket) {
+                bucket.offer(key(endpointHit.getAppId(), endpointHit.getUriId()), 1);
+            }
+        }
+        buckets.headMap(oldestRetained()).clear();
+    }
+
+    /**
+     * Whether every hour from {@code start} on has been observed in full.
+     */
+    public boolean covers(LocalDateTime start) {
+        LocalDateTime first = start.truncatedTo(ChronoUnit.HOURS);
+        return !first.isBefore(trackedSince) && !first.isBefore(oldestRetained());
+    }
+
+    /**
+     * Up to {@code n} keys (see {@link #appId}, {@link #uriId}) with the highest hits in the hours touched by
+     * [start, end], most visited first. Counts may be overestimated.
+     */
+    public List<Map.Entry<Long, Long>> top(LocalDateTime start, LocalDateTime end, int n) {
+        Map<Long, Long> totals = new HashMap<>();
+        for (SpaceSaving bucket : buckets.subMap(start.truncatedTo(ChronoUnit.HOURS), true,
+                end.truncatedTo(ChronoUnit.HOURS), true).values()) {
+            synchronized (bucket) {
+                bucket.addCountsTo(totals);
+            }
+        }
+
+        PriorityQueue<Map.Entry<Long, Long>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Long> entry : totals.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > n) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Long>> top = new ArrayList<>(heap);
+        top.sort(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()));
+        return top;
+    }
+
+    public static int appId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int uriId(long key) {
+        return (int) key;
+    }
+
+    private static long key(int appId, int uriId) {
+        return ((long) appId << 32) | (uriId & 0xffffffffL);
+    }
+
+    private LocalDateTime oldestRetained() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(retentionHours);
+    }
+}
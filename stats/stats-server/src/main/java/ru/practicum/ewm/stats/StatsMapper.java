@@ -13,7 +13,7 @@ public class StatsMapper {
                 .id(endpointHit.getId())
                 .app(endpointHit.getApp())
                 .uri(endpointHit.getUri())
-                .ip(endpointHit.getIp())
+                .ip(IpAddresses.toString(endpointHit.getIp()))
                 .timestamp(endpointHit.getTimestamp().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
                 .build();
     }
@@ -22,7 +22,7 @@ public class StatsMapper {
         return EndpointHit.builder()
                 .app(endpointHitDto.getApp())
                 .uri(endpointHitDto.getUri())
-                .ip(endpointHitDto.getIp())
+                .ip(IpAddresses.toBytes(endpointHitDto.getIp()))
                 .timestamp(LocalDateTime.parse(endpointHitDto.getTimestamp(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
                 .build();
     }
@@ -1,30 +1,42 @@
 package ru.practicum.ewm.stats.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
 import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
 import ru.practicum.ewm.stats.Service.StatsService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @RestController
 public class StatsServerController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final StatsService statsService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public StatsServerController(StatsService statsService) {
+    public StatsServerController(StatsService statsService, ObjectMapper objectMapper) {
         this.statsService = statsService;
+        this.objectMapper = objectMapper;
     }
 
     @ResponseStatus(HttpStatus.CREATED)
@@ -35,13 +47,74 @@ public class StatsServerController {
         return statsService.addRequest(endpointHitDto);
     }
 
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/hit/batch")
+    public void addRequests(@RequestBody List<EndpointHitDto> endpointHitDtos) {
+        log.info("Creating {} requests in batch", endpointHitDtos.size());
+        statsService.addRequests(endpointHitDtos);
+    }
+
     @GetMapping("/stats")
     public List<ViewStats> getStats(@RequestParam(name = "start") String start,
                                     @RequestParam(name = "end") String end,
                                     @RequestParam(required = false, name = "uris") String[] uris,
-                                    @RequestParam(name = "unique", defaultValue = "false") boolean unique) throws UnsupportedEncodingException {
+                                    @RequestParam(name = "unique", defaultValue = "false") boolean unique,
+                                    @RequestParam(name = "approximate", defaultValue = "false") boolean approximate) throws UnsupportedEncodingException {
         log.info("Get stats");
-        return statsService.getStats(start, end, uris, unique);
+        return statsService.getStats(start, end, uris, unique, approximate);
+    }
+
+    @GetMapping("/stats/top")
+    public List<ViewStats> getTopStats(@RequestParam(name = "start") String start,
+                                       @RequestParam(name = "end") String end,
+                                       @RequestParam(name = "n", defaultValue = "10") int n,
+                                       @RequestParam(name = "unique", defaultValue = "false") boolean unique,
+                                       @RequestParam(name = "exact", defaultValue = "false") boolean exact) {
+        log.info("Get top {} stats", n);
+        return statsService.getTopStats(start, end, n, unique, exact);
+    }
+
+    // Для клиентов с Accept: application/x-ndjson строки пишутся по мере чтения из БД, по одной на строку.
+    // Выгрузка ограничена spring.mvc.async.request-timeout; если она оборвалась из-за ошибки,
+    // последней строкой идёт {"error": "..."}, чтобы клиент отличил обрыв от полного ответа
+    @GetMapping(value = "/stats", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamStats(@RequestParam(name = "start") String start,
+                                             @RequestParam(name = "end") String end,
+                                             @RequestParam(required = false, name = "uris") String[] uris,
+                                             @RequestParam(name = "unique", defaultValue = "false") boolean unique,
+                                             @RequestParam(name = "approximate", defaultValue = "false") boolean approximate) {
+        log.info("Stream stats");
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            AtomicLong rows = new AtomicLong();
+            try {
+                statsService.streamStats(start, end, uris, unique, approximate, viewStats -> {
+                    try {
+                        rows.incrementAndGet();
+                        generator.writeObject(viewStats);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // клиент отключился или ответ уже закрыт по таймауту: писать некуда
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                if (rows.get() == 0) {
+                    // ничего не отправлено: ошибку со статусом вернёт ErrorHandler
+                    throw e;
+                }
+                log.warn("Stats stream failed: {}", e.getMessage());
+                generator.writeStartObject();
+                generator.writeStringField("error", e.getMessage());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
 }
@@ -3,6 +3,7 @@ package ru.practicum.ewm.stats.exception;
 import io.micrometer.core.lang.NonNull;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -35,7 +36,10 @@ public class ErrorHandler extends ResponseEntityExceptionHandler {
                 .message(ex.getLocalizedMessage())
                 .timestamp((LocalDateTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
                 .build();
-        return new ResponseEntity<>(apiError, new HttpHeaders(), apiError.getStatus());
+        // явный JSON: ошибка потокового /stats (Accept: application/x-ndjson) тоже должна дойти до клиента
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new ResponseEntity<>(apiError, headers, apiError.getStatus());
     }
 
     public @NotNull
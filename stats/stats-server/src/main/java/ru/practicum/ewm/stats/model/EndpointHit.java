@@ -14,6 +14,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import java.time.LocalDateTime;
 
 @Entity
@@ -31,14 +32,21 @@ public class EndpointHit {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(nullable = false)
+    @Column(name = "app_id", nullable = false)
+    private Integer appId;
+
+    @Column(name = "uri_id", nullable = false)
+    private Integer uriId;
+
+    @Transient
     private String app;
 
-    @Column(nullable = false)
+    @Transient
     private String uri;
 
+    // 16 байт, см. IpAddresses
     @Column(nullable = false)
-    private String ip;
+    private byte[] ip;
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
@@ -0,0 +1,12 @@
+package ru.practicum.ewm.stats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class HitCount {
+    private Integer appId;
+    private Integer uriId;
+    private Long hits;
+}
@@ -0,0 +1,22 @@
+package ru.practicum.ewm.stats.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+class BucketKey {
+    // Ключи пакета обрабатываются в одном порядке, чтобы параллельные вставки не блокировали друг друга
+    static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::getBucket)
+            .thenComparing(BucketKey::getUriId)
+            .thenComparing(BucketKey::getAppId);
+
+    private final Integer appId;
+    private final Integer uriId;
+    private final LocalDateTime bucket;
+}
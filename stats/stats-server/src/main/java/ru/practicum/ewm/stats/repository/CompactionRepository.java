@@ -0,0 +1,111 @@
+package ru.practicum.ewm.stats.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class CompactionRepository {
+    private static final String NAME = "endpointhit";
+    // ключ pg_try_advisory_lock, общий для всех экземпляров stats-server
+    private static final long LOCK_KEY = 0x73746174735f63L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    @Autowired
+    public CompactionRepository(JdbcTemplate jdbcTemplate, DatabaseDialect databaseDialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgres = databaseDialect.isPostgres();
+    }
+
+    /**
+     * Runs the compaction unless another instance is already running it: on PostgreSQL a session advisory lock
+     * is held on a separate connection for the whole run. Returns false if the lock is taken.
+     */
+    public boolean runExclusively(Runnable compaction) {
+        if (!postgres) {
+            compaction.run();
+            return true;
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                return false;
+            }
+            try {
+                compaction.run();
+                return true;
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+        });
+    }
+
+    /**
+     * Before the watermark only hour rollups and sketches are kept: raw hits and minute rollups are deleted.
+     */
+    public LocalDateTime getWatermark() {
+        List<Timestamp> watermarks = jdbcTemplate.queryForList(
+                "SELECT watermark FROM stats_compaction WHERE name = ?", Timestamp.class, NAME);
+        return watermarks.isEmpty() ? null : watermarks.get(0).toLocalDateTime();
+    }
+
+    public void setWatermark(LocalDateTime watermark) {
+        int updated = jdbcTemplate.update("UPDATE stats_compaction SET watermark = ? WHERE name = ?",
+                Timestamp.valueOf(watermark), NAME);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO stats_compaction (name, watermark) VALUES (?, ?)",
+                    NAME, Timestamp.valueOf(watermark));
+        }
+    }
+
+    public LocalDateTime findOldestHit(LocalDateTime before) {
+        return toLocalDateTime(jdbcTemplate.queryForObject(
+                "SELECT MIN(eh.timestamp) FROM endpointhit AS eh WHERE eh.timestamp < ?",
+                Timestamp.class, Timestamp.valueOf(before)));
+    }
+
+    public LocalDateTime findOldestMinuteBucket(LocalDateTime before) {
+        return toLocalDateTime(jdbcTemplate.queryForObject(
+                "SELECT MIN(bucket) FROM endpointhit_minute WHERE bucket < ?",
+                Timestamp.class, Timestamp.valueOf(before)));
+    }
+
+    /**
+     * Deletes at most limit hits from [from, to); the caller repeats until fewer rows come back.
+     */
+    public int deleteHits(LocalDateTime from, LocalDateTime to, int limit) {
+        return jdbcTemplate.update("DELETE FROM endpointhit AS eh WHERE eh.timestamp >= ? AND eh.timestamp < ? " +
+                        "AND eh.id IN (SELECT h.id FROM endpointhit AS h WHERE h.timestamp >= ? AND h.timestamp < ? LIMIT ?)",
+                Timestamp.valueOf(from), Timestamp.valueOf(to), Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+    }
+
+    public int deleteMinuteBuckets(LocalDateTime from, LocalDateTime to, int limit) {
+        return jdbcTemplate.update("DELETE FROM endpointhit_minute WHERE (uri_id, bucket, app_id) IN " +
+                        "(SELECT m.uri_id, m.bucket, m.app_id FROM endpointhit_minute AS m " +
+                        "WHERE m.bucket >= ? AND m.bucket < ? LIMIT ?)",
+                Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.ewm.stats.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+@Component
+public class DatabaseDialect {
+    private final boolean postgres;
+
+    @Autowired
+    public DatabaseDialect(DataSource dataSource) throws MetaDataAccessException {
+        String databaseName = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        this.postgres = "PostgreSQL".equals(databaseName);
+    }
+
+    public boolean isPostgres() {
+        return postgres;
+    }
+}
@@ -0,0 +1,175 @@
+package ru.practicum.ewm.stats.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stats.Service.StatsResultCache;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Дневные секции endpointhit (только PostgreSQL): создаёт на days-ahead дней вперёд
+// и удаляет секции старше retention-days (0 - хранить всё) вместе со старыми строками endpointhit_default.
+// Удаление, как и StatsCompactor, сначала сдвигает watermark сжатия, чтобы запросы к этим дням шли
+// в часовые агрегаты и скетчи. Несозданная секция - ошибка: при старте приложение не поднимается,
+// по расписанию исключение уходит в лог планировщика
+@Slf4j
+@Component
+public class EndpointHitPartitionManager {
+    private static final String PARTITION_PREFIX = "endpointhit_";
+    private static final String DEFAULT_PARTITION = "endpointhit_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String CREATE_PARTITION = "CREATE TABLE %s PARTITION OF endpointhit " +
+            "FOR VALUES FROM ('%s') TO ('%s')";
+    private static final String SELECT_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'endpointhit'";
+    private static final String COPY_DEFAULT_ROWS = "CREATE TEMPORARY TABLE endpointhit_moving ON COMMIT DROP AS " +
+            "SELECT * FROM " + DEFAULT_PARTITION + " WHERE timestamp >= '%s' AND timestamp < '%s'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompactionRepository compactionRepository;
+    private final StatsResultCache statsResultCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int daysAhead;
+    private final int retentionDays;
+
+    @Autowired
+    public EndpointHitPartitionManager(JdbcTemplate jdbcTemplate,
+                                       CompactionRepository compactionRepository,
+                                       StatsResultCache statsResultCache,
+                                       DatabaseDialect databaseDialect,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${stats.partitions.days-ahead:7}") int daysAhead,
+                                       @Value("${stats.retention-days:0}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compactionRepository = compactionRepository;
+        this.statsResultCache = statsResultCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = databaseDialect.isPostgres();
+        this.daysAhead = daysAhead;
+        this.retentionDays = retentionDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${stats.partitions.cron:0 5 0 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        Set<String> partitions = new HashSet<>(jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class));
+        List<String> failed = new ArrayList<>();
+        // вчерашняя секция нужна для запоздавших хитов, пришедших после полуночи
+        for (LocalDate day = today.minusDays(1); !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+            if (partitions.contains(partitionName(day))) {
+                continue;
+            }
+            try {
+                createPartition(day);
+            } catch (DataAccessException e) {
+                log.error("Failed to create partition {}: {}", partitionName(day), e.getMessage());
+                failed.add(partitionName(day));
+            }
+        }
+        if (retentionDays > 0) {
+            dropPartitionsBefore(today.minusDays(retentionDays), partitions);
+        }
+        if (!failed.isEmpty()) {
+            // хиты этих дней копятся в endpointhit_default
+            throw new IllegalStateException("Failed to create partitions " + failed);
+        }
+    }
+
+    // PostgreSQL не создаёт секцию, пока в endpointhit_default есть строки её диапазона,
+    // поэтому они переносятся в новую секцию в той же транзакции
+    private void createPartition(LocalDate day) {
+        String partition = partitionName(day);
+        String from = day.atStartOfDay().format(BOUND);
+        String to = day.plusDays(1).atStartOfDay().format(BOUND);
+        Integer moved = transactionTemplate.execute(status -> {
+            // новые хиты этого дня ждут коммита, а не попадают в endpointhit_default после переноса
+            jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN ACCESS EXCLUSIVE MODE");
+            if (!jdbcTemplate.queryForList(SELECT_PARTITIONS + " AND c.relname = ?", String.class, partition).isEmpty()) {
+                return 0; // создал другой экземпляр
+            }
+            jdbcTemplate.execute(String.format(COPY_DEFAULT_ROWS, from, to));
+            int rows = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?",
+                    Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+            jdbcTemplate.execute(String.format(CREATE_PARTITION, partition, from, to));
+            if (rows > 0) {
+                jdbcTemplate.update("INSERT INTO endpointhit SELECT * FROM endpointhit_moving");
+            }
+            return rows;
+        });
+        log.info("Created partition {}, {} hits moved from {}", partition, moved, DEFAULT_PARTITION);
+    }
+
+    private void dropPartitionsBefore(LocalDate horizon, Set<String> partitions) {
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            LocalDate day = partitionDay(partition);
+            if (day != null && day.isBefore(horizon)) {
+                expired.add(partition);
+            }
+        }
+        Timestamp before = Timestamp.valueOf(horizon.atStartOfDay());
+        Boolean expiredDefault = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?)", Boolean.class, before);
+        if (expired.isEmpty() && !Boolean.TRUE.equals(expiredDefault)) {
+            return;
+        }
+        // Дни до горизонта считаются по часовым агрегатам и скетчам, а не по сырым хитам
+        LocalDateTime watermark = compactionRepository.getWatermark();
+        if (watermark == null || watermark.isBefore(horizon.atStartOfDay())) {
+            compactionRepository.setWatermark(horizon.atStartOfDay());
+        }
+        for (String partition : expired) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+            log.info("Dropped expired partition {}", partition);
+        }
+        if (Boolean.TRUE.equals(expiredDefault)) {
+            int deleted = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?", before);
+            log.info("Deleted {} expired hits from {}", deleted, DEFAULT_PARTITION);
+        }
+        statsResultCache.clear();
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+    }
+
+    private static LocalDate partitionDay(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
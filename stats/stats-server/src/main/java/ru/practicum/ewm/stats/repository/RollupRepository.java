@@ -0,0 +1,196 @@
+package ru.practicum.ewm.stats.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+import ru.practicum.ewm.stats.Service.Granularity;
+import ru.practicum.ewm.stats.Service.StatsSegment;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// Запись хитов только дописывает минутные приращения в endpointhit_rollup_delta; flush() переносит их
+// в минутные и часовые агрегаты, поэтому транзакции записи не ждут блокировок строк «горячего» часа
+@Slf4j
+@Repository
+public class RollupRepository {
+    private static final String MINUTE_TABLE = "endpointhit_minute";
+    private static final String HOUR_TABLE = "endpointhit_hour";
+    private static final String DELTA_TABLE = "endpointhit_rollup_delta";
+
+    private static final String POSTGRES_UPSERT = "INSERT INTO %s AS r (app_id, uri_id, bucket, hits) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (uri_id, bucket, app_id) DO UPDATE SET hits = r.hits + EXCLUDED.hits";
+    private static final String MERGE_UPSERT = "MERGE INTO %s AS r " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS TIMESTAMP), CAST(? AS BIGINT))) " +
+            "AS h (app_id, uri_id, bucket, hits) " +
+            "ON r.uri_id = h.uri_id AND r.bucket = h.bucket AND r.app_id = h.app_id " +
+            "WHEN MATCHED THEN UPDATE SET hits = r.hits + h.hits " +
+            "WHEN NOT MATCHED THEN INSERT (app_id, uri_id, bucket, hits) VALUES (h.app_id, h.uri_id, h.bucket, h.hits)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final StatsDictionary statsDictionary;
+    private final String upsert;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+
+    @Autowired
+    public RollupRepository(JdbcTemplate jdbcTemplate,
+                            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                            StatsDictionary statsDictionary,
+                            DatabaseDialect databaseDialect,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${stats.rollup.flush-batch-size:1000}") int flushBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.statsDictionary = statsDictionary;
+        this.upsert = databaseDialect.isPostgres() ? POSTGRES_UPSERT : MERGE_UPSERT;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    public void addHits(List<EndpointHit> endpointHits) {
+        if (endpointHits.isEmpty()) {
+            return;
+        }
+        Map<BucketKey, Long> counts = new TreeMap<>(BucketKey.ORDER);
+        for (EndpointHit endpointHit : endpointHits) {
+            counts.merge(new BucketKey(endpointHit.getAppId(), endpointHit.getUriId(),
+                    endpointHit.getTimestamp().truncatedTo(ChronoUnit.MINUTES)), 1L, Long::sum);
+        }
+        List<Map.Entry<BucketKey, Long>> rows = new ArrayList<>(counts.entrySet());
+        jdbcTemplate.batchUpdate("INSERT INTO " + DELTA_TABLE + " (app_id, uri_id, bucket, hits) VALUES (?, ?, ?, ?)",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setInt(1, row.getKey().getAppId());
+                    ps.setInt(2, row.getKey().getUriId());
+                    ps.setTimestamp(3, Timestamp.valueOf(row.getKey().getBucket()));
+                    ps.setLong(4, row.getValue());
+                });
+    }
+
+    /**
+     * Переносит приращения из endpointhit_rollup_delta в минутные и часовые агрегаты пакетами по flush-batch-size строк.
+     * Сложение не идемпотентно, поэтому пакет сначала удаляется из delta: если часть строк уже забрал
+     * сброс на другом экземпляре, транзакция откатывается и пакет выбирается заново.
+     */
+    @Scheduled(fixedDelayString = "${stats.rollup.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        try {
+            Integer folded;
+            do {
+                folded = transactionTemplate.execute(status -> foldDeltas());
+            } while (folded != null && folded >= flushBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush rollups: {}", e.getMessage());
+        }
+    }
+
+    private int foldDeltas() {
+        List<Long> ids = new ArrayList<>();
+        Map<BucketKey, Long> minutes = new TreeMap<>(BucketKey.ORDER);
+        Map<BucketKey, Long> hours = new TreeMap<>(BucketKey.ORDER);
+        jdbcTemplate.query("SELECT id, app_id, uri_id, bucket, hits FROM " + DELTA_TABLE + " ORDER BY id LIMIT ?",
+                (RowCallbackHandler) rs -> {
+                    ids.add(rs.getLong("id"));
+                    LocalDateTime bucket = rs.getTimestamp("bucket").toLocalDateTime();
+                    long hits = rs.getLong("hits");
+                    minutes.merge(new BucketKey(rs.getInt("app_id"), rs.getInt("uri_id"), bucket), hits, Long::sum);
+                    hours.merge(new BucketKey(rs.getInt("app_id"), rs.getInt("uri_id"),
+                            bucket.truncatedTo(ChronoUnit.HOURS)), hits, Long::sum);
+                }, flushBatchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = namedParameterJdbcTemplate.update("DELETE FROM " + DELTA_TABLE + " WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids));
+        if (deleted != ids.size()) {
+            throw new IllegalStateException("Rollup deltas are being flushed concurrently");
+        }
+        upsert(MINUTE_TABLE, minutes);
+        upsert(HOUR_TABLE, hours);
+        return ids.size();
+    }
+
+    public List<ViewStats> requestStats(List<StatsSegment> segments, String[] uris) {
+        List<ViewStats> list = new ArrayList<>();
+        streamStats(segments, uris, null, list::add);
+        return list;
+    }
+
+    // Строки читаются курсором (spring.jdbc.template.fetch-size) и сразу передаются consumer
+    public void streamStats(List<StatsSegment> segments, String[] uris, Integer limit, Consumer<ViewStats> consumer) {
+        if (uris != null && uris.length == 0) {
+            return;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (uris != null) {
+            List<Integer> uriIds = statsDictionary.findUriIds(uris);
+            if (uriIds.isEmpty()) {
+                return;
+            }
+            parameters.addValue("uriIds", uriIds);
+        }
+        StringJoiner union = new StringJoiner(" UNION ALL ");
+        for (int i = 0; i < segments.size(); i++) {
+            StatsSegment segment = segments.get(i);
+            parameters.addValue("from" + i, Timestamp.valueOf(segment.getFrom()));
+            parameters.addValue("to" + i, Timestamp.valueOf(segment.getTo()));
+            union.add(segmentQuery(segment.getGranularity(), i, uris != null));
+        }
+
+        String sql = "SELECT s.app_id, s.uri_id, SUM(s.hits) AS hits FROM (" + union + ") AS s " +
+                "GROUP BY s.app_id, s.uri_id ORDER BY hits DESC";
+        if (limit != null) {
+            parameters.addValue("limit", limit);
+            sql += " LIMIT :limit";
+        }
+        namedParameterJdbcTemplate.query(sql, parameters, (RowCallbackHandler) rs -> consumer.accept(
+                statsDictionary.toViewStats(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits"))));
+    }
+
+    private String segmentQuery(Granularity granularity, int index, boolean filterUris) {
+        String from = ":from" + index;
+        String to = ":to" + index;
+        String uriFilter = filterUris ? " AND eh.uri_id IN (:uriIds)" : "";
+        if (granularity == Granularity.RAW) {
+            return "SELECT eh.app_id, eh.uri_id, COUNT(eh.ip) AS hits FROM endpointhit AS eh " +
+                    "WHERE eh.timestamp >= " + from + " AND eh.timestamp < " + to + uriFilter +
+                    " GROUP BY eh.app_id, eh.uri_id";
+        }
+        // Ещё не перенесённые приращения минутные, поэтому подходят и к минутным, и к часовым границам;
+        // весь запрос - один снимок, и строка, которую переносит flush, учитывается ровно один раз
+        String table = granularity == Granularity.MINUTE ? MINUTE_TABLE : HOUR_TABLE;
+        String bucketFilter = " WHERE eh.bucket >= " + from + " AND eh.bucket < " + to + uriFilter;
+        return "SELECT eh.app_id, eh.uri_id, SUM(eh.hits) AS hits FROM (" +
+                "SELECT eh.app_id, eh.uri_id, eh.hits FROM " + table + " AS eh" + bucketFilter + " UNION ALL " +
+                "SELECT eh.app_id, eh.uri_id, eh.hits FROM " + DELTA_TABLE + " AS eh" + bucketFilter +
+                ") AS eh GROUP BY eh.app_id, eh.uri_id";
+    }
+
+    private void upsert(String table, Map<BucketKey, Long> counts) {
+        List<Map.Entry<BucketKey, Long>> rows = new ArrayList<>(counts.entrySet());
+        jdbcTemplate.batchUpdate(String.format(upsert, table), rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getKey().getAppId());
+            ps.setInt(2, row.getKey().getUriId());
+            ps.setTimestamp(3, Timestamp.valueOf(row.getKey().getBucket()));
+            ps.setLong(4, row.getValue());
+        });
+    }
+}
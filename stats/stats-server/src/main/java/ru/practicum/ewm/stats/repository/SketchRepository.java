@@ -0,0 +1,215 @@
+package ru.practicum.ewm.stats.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+import ru.practicum.ewm.stats.Service.Granularity;
+import ru.practicum.ewm.stats.Service.StatsSegment;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Slf4j
+@Repository
+public class SketchRepository {
+    private static final String POSTGRES_CREATE = "INSERT INTO endpointhit_hll (app_id, uri_id, bucket, sketch) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (uri_id, bucket, app_id) DO NOTHING";
+    private static final String MERGE_CREATE = "MERGE INTO endpointhit_hll AS r " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS TIMESTAMP), CAST(? AS BYTEA))) " +
+            "AS h (app_id, uri_id, bucket, sketch) " +
+            "ON r.uri_id = h.uri_id AND r.bucket = h.bucket AND r.app_id = h.app_id " +
+            "WHEN NOT MATCHED THEN INSERT (app_id, uri_id, bucket, sketch) VALUES (h.app_id, h.uri_id, h.bucket, h.sketch)";
+    private static final String SELECT_FOR_UPDATE = "SELECT sketch FROM endpointhit_hll " +
+            "WHERE uri_id = ? AND bucket = ? AND app_id = ? FOR UPDATE";
+    private static final String UPDATE = "UPDATE endpointhit_hll SET sketch = ? WHERE uri_id = ? AND bucket = ? AND app_id = ?";
+
+    private static final String INSERT_DELTA = "INSERT INTO endpointhit_hll_delta (app_id, uri_id, bucket, sketch) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final StatsDictionary statsDictionary;
+    private final String create;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+
+    @Autowired
+    public SketchRepository(JdbcTemplate jdbcTemplate,
+                            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                            StatsDictionary statsDictionary,
+                            DatabaseDialect databaseDialect,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${stats.sketch.flush-batch-size:1000}") int flushBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.statsDictionary = statsDictionary;
+        this.create = databaseDialect.isPostgres() ? POSTGRES_CREATE : MERGE_CREATE;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Дописывает регистры пакета в endpointhit_hll_delta в транзакции записи хитов: скетч сохраняется
+     * вместе с хитами, поэтому сжатие может удалять сырые хиты сразу. Строки endpointhit_hll переписывает
+     * только flush(), и запись хитов не ждёт блокировки строки скетча.
+     */
+    public void addHits(List<EndpointHit> endpointHits) {
+        if (endpointHits.isEmpty()) {
+            return;
+        }
+        Map<BucketKey, HyperLogLog> sketches = new HashMap<>();
+        for (EndpointHit endpointHit : endpointHits) {
+            BucketKey key = new BucketKey(endpointHit.getAppId(), endpointHit.getUriId(),
+                    endpointHit.getTimestamp().truncatedTo(ChronoUnit.HOURS));
+            sketches.computeIfAbsent(key, k -> new HyperLogLog()).add(endpointHit.getIp());
+        }
+        List<Map.Entry<BucketKey, HyperLogLog>> rows = new ArrayList<>(sketches.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_DELTA, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getKey().getAppId());
+            ps.setInt(2, row.getKey().getUriId());
+            ps.setTimestamp(3, Timestamp.valueOf(row.getKey().getBucket()));
+            ps.setBytes(4, row.getValue().toBytes());
+        });
+    }
+
+    /**
+     * Переносит накопленные регистры из endpointhit_hll_delta в endpointhit_hll пакетами по flush-batch-size строк,
+     * каждый в своей транзакции. При ошибке строки остаются в delta до следующего запуска; слияние HLL идемпотентно,
+     * поэтому повтор или параллельный сброс на другом экземпляре ничего не задвоит.
+     */
+    @Scheduled(fixedDelayString = "${stats.sketch.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        try {
+            Integer folded;
+            do {
+                folded = transactionTemplate.execute(status -> foldDeltas());
+            } while (folded != null && folded >= flushBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush sketches: {}", e.getMessage());
+        }
+    }
+
+    private int foldDeltas() {
+        List<Long> ids = new ArrayList<>();
+        Map<BucketKey, HyperLogLog> batch = new TreeMap<>(BucketKey.ORDER);
+        jdbcTemplate.query("SELECT id, app_id, uri_id, bucket, sketch FROM endpointhit_hll_delta ORDER BY id LIMIT ?",
+                (RowCallbackHandler) rs -> {
+                    ids.add(rs.getLong("id"));
+                    BucketKey key = new BucketKey(rs.getInt("app_id"), rs.getInt("uri_id"),
+                            rs.getTimestamp("bucket").toLocalDateTime());
+                    HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("sketch"));
+                    batch.merge(key, sketch, (stored, added) -> {
+                        stored.merge(added);
+                        return stored;
+                    });
+                }, flushBatchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        namedParameterJdbcTemplate.update("DELETE FROM endpointhit_hll_delta WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids));
+        write(batch);
+        return ids.size();
+    }
+
+    private void write(Map<BucketKey, HyperLogLog> sketches) {
+        List<BucketKey> keys = new ArrayList<>(sketches.keySet());
+        byte[] empty = new HyperLogLog().toBytes();
+        jdbcTemplate.batchUpdate(create, keys, keys.size(), (ps, key) -> {
+            ps.setInt(1, key.getAppId());
+            ps.setInt(2, key.getUriId());
+            ps.setTimestamp(3, Timestamp.valueOf(key.getBucket()));
+            ps.setBytes(4, empty);
+        });
+
+        List<Object[]> updates = new ArrayList<>(keys.size());
+        for (BucketKey key : keys) {
+            Timestamp bucket = Timestamp.valueOf(key.getBucket());
+            byte[] stored = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE, byte[].class, key.getUriId(), bucket, key.getAppId());
+            HyperLogLog sketch = HyperLogLog.fromBytes(stored);
+            sketch.merge(sketches.get(key));
+            updates.add(new Object[]{sketch.toBytes(), key.getUriId(), bucket, key.getAppId()});
+        }
+        jdbcTemplate.batchUpdate(UPDATE, updates);
+    }
+
+    public List<ViewStats> requestUniqueStats(List<StatsSegment> segments, String[] uris) {
+        if (uris != null && uris.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Integer> uriIds = null;
+        if (uris != null) {
+            uriIds = statsDictionary.findUriIds(uris);
+            if (uriIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+        String uriFilter = uris != null ? " AND eh.uri_id IN (:uriIds)" : "";
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        for (StatsSegment segment : segments) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("from", Timestamp.valueOf(segment.getFrom()))
+                    .addValue("to", Timestamp.valueOf(segment.getTo()));
+            if (uriIds != null) {
+                parameters.addValue("uriIds", uriIds);
+            }
+            if (segment.getGranularity() == Granularity.HOUR) {
+                // Один запрос - один снимок: строки, которые flush переносит из delta, видны ровно в одной из таблиц
+                namedParameterJdbcTemplate.query("SELECT eh.app_id, eh.uri_id, eh.sketch FROM endpointhit_hll AS eh " +
+                        "WHERE eh.bucket >= :from AND eh.bucket < :to" + uriFilter + " UNION ALL " +
+                        "SELECT eh.app_id, eh.uri_id, eh.sketch FROM endpointhit_hll_delta AS eh " +
+                        "WHERE eh.bucket >= :from AND eh.bucket < :to" + uriFilter, parameters, rs -> {
+                            sketchOf(sketches, rs.getInt("app_id"), rs.getInt("uri_id"))
+                                    .merge(HyperLogLog.fromBytes(rs.getBytes("sketch")));
+                        });
+            } else if (segment.getGranularity() == Granularity.RAW) {
+                namedParameterJdbcTemplate.query("SELECT DISTINCT eh.app_id, eh.uri_id, eh.ip FROM endpointhit AS eh " +
+                        "WHERE eh.timestamp >= :from AND eh.timestamp < :to" + uriFilter, parameters, rs -> {
+                            sketchOf(sketches, rs.getInt("app_id"), rs.getInt("uri_id")).add(rs.getBytes("ip"));
+                        });
+            } else {
+                throw new IllegalArgumentException("Sketches are kept per hour, got " + segment.getGranularity());
+            }
+        }
+
+        List<ViewStats> list = new ArrayList<>(sketches.size());
+        for (Map.Entry<AppUri, HyperLogLog> entry : sketches.entrySet()) {
+            list.add(statsDictionary.toViewStats(entry.getKey().getAppId(), entry.getKey().getUriId(),
+                    entry.getValue().estimate()));
+        }
+        list.sort(Comparator.comparing(ViewStats::getHits).reversed());
+        return list;
+    }
+
+    private static HyperLogLog sketchOf(Map<AppUri, HyperLogLog> sketches, int appId, int uriId) {
+        return sketches.computeIfAbsent(new AppUri(appId, uriId), k -> new HyperLogLog());
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class AppUri {
+        private final int appId;
+        private final int uriId;
+    }
+}
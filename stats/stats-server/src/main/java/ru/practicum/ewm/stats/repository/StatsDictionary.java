@@ -0,0 +1,141 @@
+package ru.practicum.ewm.stats.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Кэш словарей stats_app и stats_uri. Записи словаря неизменяемы, поэтому кэш не нужно сбрасывать
+@Component
+public class StatsDictionary {
+    private final Dictionary apps;
+    private final Dictionary uris;
+
+    @Autowired
+    public StatsDictionary(JdbcTemplate jdbcTemplate, DatabaseDialect databaseDialect) {
+        this.apps = new Dictionary("stats_app", 50, jdbcTemplate, databaseDialect.isPostgres());
+        this.uris = new Dictionary("stats_uri", 1000, jdbcTemplate, databaseDialect.isPostgres());
+    }
+
+    /**
+     * Новые имена вставляются в транзакции записи хитов (второе соединение из пула не нужно)
+     * и попадают в кэш только после её коммита.
+     */
+    public void encode(List<EndpointHit> endpointHits) {
+        Map<String, Integer> appIds = apps.getOrCreateIds(endpointHits.stream()
+                .map(EndpointHit::getApp)
+                .collect(Collectors.toCollection(TreeSet::new)));
+        Map<String, Integer> uriIds = uris.getOrCreateIds(endpointHits.stream()
+                .map(EndpointHit::getUri)
+                .collect(Collectors.toCollection(TreeSet::new)));
+        for (EndpointHit endpointHit : endpointHits) {
+            endpointHit.setAppId(appIds.get(endpointHit.getApp()));
+            endpointHit.setUriId(uriIds.get(endpointHit.getUri()));
+        }
+    }
+
+    /**
+     * Ids of the known uris; uris that were never hit are skipped.
+     */
+    public List<Integer> findUriIds(String[] names) {
+        List<Integer> ids = new ArrayList<>(names.length);
+        for (String name : names) {
+            Integer id = uris.findId(name);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    public ViewStats toViewStats(int appId, int uriId, long hits) {
+        return new ViewStats(apps.getName(appId), uris.getName(uriId), (int) hits);
+    }
+
+    private static class Dictionary {
+        private final JdbcTemplate jdbcTemplate;
+        private final String insert;
+        private final String selectId;
+        private final String selectName;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+        Dictionary(String table, int nameLength, JdbcTemplate jdbcTemplate, boolean postgres) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.insert = postgres
+                    ? "INSERT INTO " + table + " (name) VALUES (?) ON CONFLICT (name) DO NOTHING"
+                    : "MERGE INTO " + table + " AS d USING (VALUES (CAST(? AS VARCHAR(" + nameLength + ")))) AS v (name) " +
+                    "ON d.name = v.name WHEN NOT MATCHED THEN INSERT (name) VALUES (v.name)";
+            this.selectId = "SELECT id FROM " + table + " WHERE name = ?";
+            this.selectName = "SELECT name FROM " + table + " WHERE id = ?";
+        }
+
+        // names отсортированы: параллельные пакеты вставляют новые имена в одном порядке и не блокируют друг друга
+        Map<String, Integer> getOrCreateIds(SortedSet<String> names) {
+            Map<String, Integer> result = new HashMap<>();
+            Map<String, Integer> created = new HashMap<>();
+            for (String name : names) {
+                Integer id = findId(name);
+                if (id == null) {
+                    jdbcTemplate.update(insert, name);
+                    id = jdbcTemplate.queryForObject(selectId, Integer.class, name);
+                    created.put(name, id);
+                }
+                result.put(name, id);
+            }
+            if (!created.isEmpty()) {
+                // при откате id пропадёт вместе со строкой, поэтому в кэш его кладём только после коммита
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            created.forEach(Dictionary.this::remember);
+                        }
+                    });
+                } else {
+                    created.forEach(this::remember);
+                }
+            }
+            return result;
+        }
+
+        Integer findId(String name) {
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            List<Integer> found = jdbcTemplate.queryForList(selectId, Integer.class, name);
+            if (found.isEmpty()) {
+                return null;
+            }
+            remember(name, found.get(0));
+            return found.get(0);
+        }
+
+        String getName(int id) {
+            String name = names.get(id);
+            if (name == null) {
+                name = jdbcTemplate.queryForObject(selectName, String.class, id);
+                remember(name, id);
+            }
+            return name;
+        }
+
+        private void remember(String name, Integer id) {
+            ids.put(name, id);
+            names.put(id, name);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.ewm.stats.repository;
+
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.HitCount;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface StatsRepositoryCustom {
+
+    void saveAllBatch(List<EndpointHit> endpointHits);
+
+    /**
+     * Unique ips per app and uri in [startTime, endTime], most visited first;
+     * uriIds == null means all uris, limit == null means all rows.
+     */
+    void streamUniqueIpStats(LocalDateTime startTime, LocalDateTime endTime, List<Integer> uriIds, Integer limit,
+                             Consumer<HitCount> consumer);
+}
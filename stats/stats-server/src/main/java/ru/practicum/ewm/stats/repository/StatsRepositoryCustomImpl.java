@@ -0,0 +1,64 @@
+package ru.practicum.ewm.stats.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.HitCount;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class StatsRepositoryCustomImpl implements StatsRepositoryCustom {
+    private static final String INSERT_HIT = "INSERT INTO endpointhit (app_id, uri_id, ip, timestamp) VALUES (?, ?, ?, ?)";
+    private static final String UNIQUE_IP_STATS = "SELECT eh.app_id, eh.uri_id, COUNT(DISTINCT eh.ip) AS hits " +
+            "FROM endpointhit AS eh WHERE eh.timestamp >= :start AND eh.timestamp <= :end%s " +
+            "GROUP BY eh.app_id, eh.uri_id ORDER BY hits DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    public StatsRepositoryCustomImpl(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    @Override
+    public void saveAllBatch(List<EndpointHit> endpointHits) {
+        if (endpointHits.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_HIT, endpointHits, endpointHits.size(), (ps, endpointHit) -> {
+            ps.setInt(1, endpointHit.getAppId());
+            ps.setInt(2, endpointHit.getUriId());
+            ps.setBytes(3, endpointHit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(endpointHit.getTimestamp()));
+        });
+    }
+
+    @Override
+    public void streamUniqueIpStats(LocalDateTime startTime, LocalDateTime endTime, List<Integer> uriIds, Integer limit,
+                                    Consumer<HitCount> consumer) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(startTime))
+                .addValue("end", Timestamp.valueOf(endTime));
+        String uriFilter = "";
+        if (uriIds != null) {
+            parameters.addValue("uriIds", uriIds);
+            uriFilter = " AND eh.uri_id IN (:uriIds)";
+        }
+        String sql = String.format(UNIQUE_IP_STATS, uriFilter);
+        if (limit != null) {
+            parameters.addValue("limit", limit);
+            sql += " LIMIT :limit";
+        }
+        namedParameterJdbcTemplate.query(sql, parameters,
+                (RowCallbackHandler) rs -> consumer.accept(
+                        new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits"))));
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.ewm.stats.sketch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters summary (Metwally et al.) over long keys.
+ * Keeps at most {@code capacity} counters; counts are never underestimated,
+ * and every key with a true count above total / capacity is guaranteed to be kept.
+ * Counters live in an indexed min-heap by count, so both an increment and an eviction take O(log capacity).
+ * Not thread-safe.
+ */
+public class SpaceSaving {
+    private final int capacity;
+    private final long[] keys;
+    private final long[] counts;
+    // позиция ключа в куче
+    private final Map<Long, Integer> positions;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(long key, long increment) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += increment;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = increment;
+            positions.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        // вытесняется минимальный счётчик (корень кучи), новый ключ наследует его значение (отсюда завышение)
+        positions.remove(keys[0]);
+        keys[0] = key;
+        counts[0] += increment;
+        positions.put(key, 0);
+        siftDown(0);
+    }
+
+    /**
+     * Adds the (overestimated) counts of the kept keys to {@code totals}.
+     */
+    public void addCountsTo(Map<Long, Long> totals) {
+        for (int i = 0; i < size; i++) {
+            totals.merge(keys[i], counts[i], Long::sum);
+        }
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        long count = counts[i];
+        keys[i] = keys[j];
+        counts[i] = counts[j];
+        keys[j] = key;
+        counts[j] = count;
+        positions.put(keys[i], i);
+        positions.put(keys[j], j);
+    }
+}
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS endpointhit (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    app_id        INTEGER          NOT NULL,
+    uri_id        INTEGER          NOT NULL,
+    ip            BYTEA            NOT NULL,
+    timestamp     TIMESTAMP        NOT NULL
+);
+
+-- покрывающий индекс: подсчёт уникальных ip читает только индекс
+CREATE INDEX IF NOT EXISTS endpointhit_uri_timestamp_ip_idx ON endpointhit (uri_id, timestamp, ip);
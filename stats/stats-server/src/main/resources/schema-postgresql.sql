@@ -0,0 +1,14 @@
+CREATE TABLE IF NOT EXISTS endpointhit (
+    id            BIGSERIAL,
+    app_id        INTEGER          NOT NULL,
+    uri_id        INTEGER          NOT NULL,
+    ip            BYTEA            NOT NULL,
+    timestamp     TIMESTAMP        NOT NULL,
+    CONSTRAINT pk_endpointhit PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- Дневные секции создаёт EndpointHitPartitionManager, сюда попадают только хиты вне созданных секций
+CREATE TABLE IF NOT EXISTS endpointhit_default PARTITION OF endpointhit DEFAULT;
+
+-- покрывающий индекс: подсчёт уникальных ip читает только индекс
+CREATE INDEX IF NOT EXISTS endpointhit_uri_timestamp_ip_idx ON endpointhit (uri_id, timestamp, ip) INCLUDE (app_id);
@@ -1,9 +1,70 @@
-DROP TABLE IF EXISTS endpointhit;
+DROP TABLE IF EXISTS endpointhit, endpointhit_minute, endpointhit_hour, endpointhit_hll, endpointhit_hll_delta,
+    endpointhit_rollup_delta, stats_compaction, stats_app, stats_uri;
 
-CREATE TABLE IF NOT EXISTS endpointhit (
+-- Словари: в таблицах хитов и агрегатов хранятся только id приложения и uri
+CREATE TABLE IF NOT EXISTS stats_app (
+    id            INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name          VARCHAR(50)      NOT NULL CONSTRAINT uq_stats_app_name UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS stats_uri (
+    id            INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name          VARCHAR(1000)    NOT NULL CONSTRAINT uq_stats_uri_name UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS endpointhit_minute (
+    app_id        INTEGER          NOT NULL,
+    uri_id        INTEGER          NOT NULL,
+    bucket        TIMESTAMP        NOT NULL,
+    hits          BIGINT           NOT NULL,
+    CONSTRAINT pk_endpointhit_minute PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX IF NOT EXISTS endpointhit_minute_bucket_idx ON endpointhit_minute (bucket);
+
+CREATE TABLE IF NOT EXISTS endpointhit_hour (
+    app_id        INTEGER          NOT NULL,
+    uri_id        INTEGER          NOT NULL,
+    bucket        TIMESTAMP        NOT NULL,
+    hits          BIGINT           NOT NULL,
+    CONSTRAINT pk_endpointhit_hour PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX IF NOT EXISTS endpointhit_hour_bucket_idx ON endpointhit_hour (bucket);
+
+-- Минутные приращения пакетов хитов; RollupRepository.flush переносит их в endpointhit_minute и endpointhit_hour
+CREATE TABLE IF NOT EXISTS endpointhit_rollup_delta (
     id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    app           VARCHAR(50)      NOT NULL,
-    uri           VARCHAR(1000)    NOT NULL,
-    ip            VARCHAR(50)      NOT NULL,
-    timestamp     TIMESTAMP        NOT NULL
-);
\ No newline at end of file
+    app_id        INTEGER          NOT NULL,
+    uri_id        INTEGER          NOT NULL,
+    bucket        TIMESTAMP        NOT NULL,
+    hits          BIGINT           NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS endpointhit_rollup_delta_bucket_idx ON endpointhit_rollup_delta (bucket);
+
+CREATE TABLE IF NOT EXISTS endpointhit_hll (
+    app_id        INTEGER          NOT NULL,
+    uri_id        INTEGER          NOT NULL,
+    bucket        TIMESTAMP        NOT NULL,
+    sketch        BYTEA            NOT NULL,
+    CONSTRAINT pk_endpointhit_hll PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX IF NOT EXISTS endpointhit_hll_bucket_idx ON endpointhit_hll (bucket);
+
+-- Регистры пакетов хитов, записанные вместе с хитами; SketchRepository.flush сливает их в endpointhit_hll
+CREATE TABLE IF NOT EXISTS endpointhit_hll_delta (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    app_id        INTEGER          NOT NULL,
+    uri_id        INTEGER          NOT NULL,
+    bucket        TIMESTAMP        NOT NULL,
+    sketch        BYTEA            NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS endpointhit_hll_delta_bucket_idx ON endpointhit_hll_delta (bucket);
+
+CREATE TABLE IF NOT EXISTS stats_compaction (
+    name          VARCHAR(50)      NOT NULL PRIMARY KEY,
+    watermark     TIMESTAMP        NOT NULL
+);
@@ -0,0 +1,70 @@
+package ru.practicum.ewm.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Разбор литералов IPv4/IPv6 в 16 байт и обратно; всё, что не литерал адреса (кроме localhost), отклоняется.
+ */
+class IpAddressesTest {
+
+    @Test
+    void ipv4IsStoredAsMappedAddress() {
+        byte[] bytes = IpAddresses.toBytes("192.168.0.255");
+
+        assertThat(bytes).containsExactly(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0xff, 0xff, 192, 168, 0, 255);
+        assertThat(IpAddresses.toString(bytes)).isEqualTo("192.168.0.255");
+    }
+
+    @Test
+    void mappedIpv6IsSameAsIpv4() {
+        assertThat(IpAddresses.toBytes("::ffff:1.2.3.4")).isEqualTo(IpAddresses.toBytes("1.2.3.4"));
+        assertThat(IpAddresses.toBytes("::FFFF:0102:0304")).isEqualTo(IpAddresses.toBytes("1.2.3.4"));
+        assertThat(IpAddresses.toString(IpAddresses.toBytes("::ffff:1.2.3.4"))).isEqualTo("1.2.3.4");
+    }
+
+    @Test
+    void localhostIsLoopback() {
+        assertThat(IpAddresses.toBytes("localhost")).isEqualTo(IpAddresses.toBytes("127.0.0.1"));
+        assertThat(IpAddresses.toBytes("LocalHost")).isEqualTo(IpAddresses.toBytes("127.0.0.1"));
+    }
+
+    @Test
+    void fullAndCompressedIpv6AreEqual() {
+        byte[] full = IpAddresses.toBytes("2001:0db8:0000:0000:0000:0000:0000:0001");
+
+        assertThat(full).containsExactly(0x20, 0x01, 0x0d, 0xb8, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1);
+        assertThat(IpAddresses.toBytes("2001:db8::1")).isEqualTo(full);
+        assertThat(IpAddresses.toBytes("2001:DB8:0:0:0:0:0:1")).isEqualTo(full);
+        assertThat(IpAddresses.toBytes(IpAddresses.toString(full))).isEqualTo(full);
+    }
+
+    @Test
+    void compressionAtEitherEnd() {
+        assertThat(IpAddresses.toBytes("::")).isEqualTo(new byte[16]);
+        assertThat(IpAddresses.toBytes("::1")[15]).isEqualTo((byte) 1);
+        assertThat(IpAddresses.toBytes("fe80::")[0]).isEqualTo((byte) 0xfe);
+        assertThat(IpAddresses.toBytes("1:2:3:4:5:6:7::")).isEqualTo(IpAddresses.toBytes("1:2:3:4:5:6:7:0"));
+    }
+
+    @Test
+    void invalidInputIsRejected() {
+        String[] invalid = {null, "", "1.2.3", "1.2.3.4.5", "256.0.0.1", "1.2.3.-4", "1..2.3", "1234.1.1.1", " 1.2.3.4",
+                "foo", "example.com", "localhost.localdomain", "1.2.3.4:80", "1::2::3", ":::", "1:2:3:4:5:6:7:8:9",
+                "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8::", "12345::", "g::1", ":1::", "fe80::1%eth0", "::ffff:1.2.3",
+                "::1.2.3.4:5", "１.2.3.4", "::１"};
+        for (String ip : invalid) {
+            assertThatThrownBy(() -> IpAddresses.toBytes(ip))
+                    .as(ip)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void invalidStoredValueIsRejected() {
+        assertThatThrownBy(() -> IpAddresses.toString(new byte[4])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> IpAddresses.toString(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.ewm.stats.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewm.stats.repository.CompactionRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Сжатие удаляет строки старше горизонта пакетами не больше batch-size, не трогая свежие.
+ */
+@SpringBootTest(properties = {"stats.compaction.horizon-hours=1", "stats.compaction.batch-size=10",
+        "stats.compaction.cron=-"})
+@ActiveProfiles("test")
+class StatsCompactorTest {
+    private static final int OLD_ROWS = 25;
+
+    @Autowired
+    private StatsCompactor statsCompactor;
+
+    @SpyBean
+    private CompactionRepository compactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM endpointhit");
+        jdbcTemplate.update("DELETE FROM endpointhit_minute");
+        jdbcTemplate.update("DELETE FROM stats_compaction");
+    }
+
+    @Test
+    void deletesOldRowsInBoundedBatches() {
+        LocalDateTime old = LocalDateTime.now().minusHours(3).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime recent = LocalDateTime.now();
+        List<Object[]> hits = new ArrayList<>();
+        List<Object[]> buckets = new ArrayList<>();
+        for (int i = 0; i < OLD_ROWS; i++) {
+            hits.add(new Object[]{Timestamp.valueOf(old.plusSeconds(i))});
+            buckets.add(new Object[]{i, Timestamp.valueOf(old.plusMinutes(i))});
+        }
+        hits.add(new Object[]{Timestamp.valueOf(recent)});
+        buckets.add(new Object[]{0, Timestamp.valueOf(recent.truncatedTo(ChronoUnit.MINUTES))});
+        jdbcTemplate.batchUpdate("INSERT INTO endpointhit (app_id, uri_id, ip, timestamp) VALUES (1, 1, X'7f000001', ?)", hits);
+        jdbcTemplate.batchUpdate("INSERT INTO endpointhit_minute (app_id, uri_id, bucket, hits) VALUES (1, ?, ?, 1)", buckets);
+
+        statsCompactor.compact();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM endpointhit", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM endpointhit_minute", Integer.class)).isEqualTo(1);
+        // 10 + 10 + 5 строк
+        verify(compactionRepository, times(3)).deleteHits(eq(old), eq(old.plusHours(1)), eq(10));
+        verify(compactionRepository, times(3)).deleteMinuteBuckets(eq(old), eq(old.plusHours(1)), eq(10));
+    }
+}
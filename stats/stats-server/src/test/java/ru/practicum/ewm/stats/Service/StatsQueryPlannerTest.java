@@ -0,0 +1,109 @@
+package ru.practicum.ewm.stats.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Разбиение окна на сегменты: границы минут и часов, конец окна включительно, сжатая часть окна.
+ */
+class StatsQueryPlannerTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 10, 18, 0, 0);
+
+    @Test
+    void unalignedWindowUsesWidestBucketsInside() {
+        assertThat(StatsQueryPlanner.plan(at(10, 30, 15), at(13, 20, 30))).containsExactly(
+                segment(Granularity.RAW, at(10, 30, 15), at(10, 31, 0)),
+                segment(Granularity.MINUTE, at(10, 31, 0), at(11, 0, 0)),
+                segment(Granularity.HOUR, at(11, 0, 0), at(13, 0, 0)),
+                segment(Granularity.MINUTE, at(13, 0, 0), at(13, 20, 0)),
+                segment(Granularity.RAW, at(13, 20, 0), at(13, 20, 31)));
+    }
+
+    @Test
+    void alignedWindowIsHoursOnly() {
+        assertThat(StatsQueryPlanner.plan(at(10, 0, 0), at(11, 59, 59)))
+                .containsExactly(segment(Granularity.HOUR, at(10, 0, 0), at(12, 0, 0)));
+    }
+
+    @Test
+    void windowInsideOneHourHasNoHourSegment() {
+        assertThat(StatsQueryPlanner.plan(at(10, 5, 30), at(10, 40, 0))).containsExactly(
+                segment(Granularity.RAW, at(10, 5, 30), at(10, 6, 0)),
+                segment(Granularity.MINUTE, at(10, 6, 0), at(10, 40, 0)),
+                segment(Granularity.RAW, at(10, 40, 0), at(10, 40, 1)));
+    }
+
+    @Test
+    void windowInsideOneMinuteIsRaw() {
+        assertThat(StatsQueryPlanner.plan(at(10, 0, 10), at(10, 0, 50)))
+                .containsExactly(segment(Granularity.RAW, at(10, 0, 10), at(10, 0, 51)));
+    }
+
+    @Test
+    void endIsInclusiveUpToWholeSecond() {
+        // хит в 10:00:59.500 ещё попадает в окно, заканчивающееся в 10:00:59
+        assertThat(StatsQueryPlanner.plan(at(10, 0, 0), at(10, 0, 59).plusNanos(500_000_000)))
+                .containsExactly(segment(Granularity.MINUTE, at(10, 0, 0), at(10, 1, 0)));
+    }
+
+    @Test
+    void compactedPartIsWidenedToWholeHours() {
+        assertThat(StatsQueryPlanner.plan(at(10, 30, 15), at(13, 20, 30), at(12, 0, 0))).containsExactly(
+                segment(Granularity.HOUR, at(10, 0, 0), at(12, 0, 0)),
+                segment(Granularity.HOUR, at(12, 0, 0), at(13, 0, 0)),
+                segment(Granularity.MINUTE, at(13, 0, 0), at(13, 20, 0)),
+                segment(Granularity.RAW, at(13, 20, 0), at(13, 20, 31)));
+    }
+
+    @Test
+    void fullyCompactedWindowIsOneHourSegment() {
+        assertThat(StatsQueryPlanner.plan(at(10, 30, 0), at(10, 40, 0), at(12, 0, 0)))
+                .containsExactly(segment(Granularity.HOUR, at(10, 0, 0), at(11, 0, 0)));
+    }
+
+    @Test
+    void hourlyPlanSkipsMinutes() {
+        assertThat(StatsQueryPlanner.planHourly(at(10, 30, 15), at(13, 20, 30))).containsExactly(
+                segment(Granularity.RAW, at(10, 30, 15), at(11, 0, 0)),
+                segment(Granularity.HOUR, at(11, 0, 0), at(13, 0, 0)),
+                segment(Granularity.RAW, at(13, 0, 0), at(13, 20, 31)));
+        assertThat(StatsQueryPlanner.planHourly(at(10, 5, 0), at(10, 40, 0)))
+                .containsExactly(segment(Granularity.RAW, at(10, 5, 0), at(10, 40, 1)));
+    }
+
+    @Test
+    void segmentsCoverWindowWithoutGapsOrOverlaps() {
+        int[] seconds = {0, 1, 59, 60, 61, 3599, 3600, 3601, 7261, 86399};
+        for (int from : seconds) {
+            for (int length : seconds) {
+                LocalDateTime start = DAY.plusHours(5).plusSeconds(from);
+                LocalDateTime end = start.plusSeconds(length);
+                assertContiguous(StatsQueryPlanner.plan(start, end), start, end.plusSeconds(1));
+                assertContiguous(StatsQueryPlanner.planHourly(start, end), start, end.plusSeconds(1));
+            }
+        }
+    }
+
+    private static void assertContiguous(List<StatsSegment> segments, LocalDateTime from, LocalDateTime to) {
+        assertThat(segments).isNotEmpty();
+        LocalDateTime cursor = from;
+        for (StatsSegment segment : segments) {
+            assertThat(segment.getFrom()).isEqualTo(cursor);
+            assertThat(segment.getFrom()).isBefore(segment.getTo());
+            cursor = segment.getTo();
+        }
+        assertThat(cursor).isEqualTo(to);
+    }
+
+    private static LocalDateTime at(int hour, int minute, int second) {
+        return DAY.withHour(hour).withMinute(minute).withSecond(second);
+    }
+
+    private static StatsSegment segment(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return new StatsSegment(granularity, from, to);
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.ewm.stats.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш /stats: сброс закрытых окон запоздавшими хитами, отказ в put после пересекающегося сброса, LRU и TTL.
+ */
+class StatsResultCacheTest {
+    private static final List<ViewStats> RESULT = Collections.singletonList(new ViewStats("ewm-main-service", "/events/1", 3));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LocalDateTime day = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(2);
+
+    @Test
+    void keyIgnoresUriOrderAndDuplicates() {
+        StatsResultCache cache = cache(10, 5000);
+        cache.put(key(day, day.plusHours(1), "/b", "/a"), RESULT, cache.generation());
+
+        assertThat(cache.get(key(day, day.plusHours(1), "/a", "/b", "/a"))).isEqualTo(RESULT);
+        assertThat(cache.get(key(day, day.plusHours(1), "/a"))).isNull();
+        assertThat(meterRegistry.get("stats.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("stats.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void lateHitsDropOnlyOverlappingClosedWindows() {
+        StatsResultCache cache = cache(10, 5000);
+        StatsResultCache.Key first = key(day, day.plusHours(1));
+        StatsResultCache.Key second = key(day.plusHours(2), day.plusHours(3));
+        cache.put(first, RESULT, cache.generation());
+        cache.put(second, RESULT, cache.generation());
+
+        cache.invalidate(day.plusMinutes(30), day.plusMinutes(30));
+
+        assertThat(cache.get(first)).isNull();
+        assertThat(cache.get(second)).isEqualTo(RESULT);
+    }
+
+    @Test
+    void resultComputedBeforeOverlappingInvalidationIsNotStored() {
+        StatsResultCache cache = cache(10, 5000);
+        StatsResultCache.Key key = key(day, day.plusHours(1));
+        long generation = cache.generation();
+
+        // пока считался результат, закоммитились хиты в его окне
+        cache.invalidate(day.plusMinutes(10), day.plusMinutes(10));
+        cache.put(key, RESULT, generation);
+
+        assertThat(cache.get(key)).isNull();
+        cache.put(key, RESULT, cache.generation());
+        assertThat(cache.get(key)).isEqualTo(RESULT);
+    }
+
+    @Test
+    void invalidationOutsideWindowDoesNotBlockPut() {
+        StatsResultCache cache = cache(10, 5000);
+        StatsResultCache.Key key = key(day, day.plusHours(1));
+        long generation = cache.generation();
+
+        cache.invalidate(day.plusHours(5), day.plusHours(6));
+        cache.put(key, RESULT, generation);
+
+        assertThat(cache.get(key)).isEqualTo(RESULT);
+    }
+
+    @Test
+    void putIsRefusedWhenInvalidationHistoryIsLost() {
+        StatsResultCache cache = cache(10, 5000);
+        StatsResultCache.Key key = key(day, day.plusHours(1));
+        long generation = cache.generation();
+
+        for (int i = 0; i < 2000; i++) {
+            cache.invalidate(day.plusDays(1), day.plusDays(1));
+        }
+        cache.put(key, RESULT, generation);
+
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    void clearRefusesResultsInFlight() {
+        StatsResultCache cache = cache(10, 5000);
+        StatsResultCache.Key key = key(day, day.plusHours(1));
+        cache.put(key, RESULT, cache.generation());
+        long generation = cache.generation();
+
+        cache.clear();
+        cache.put(key(day.plusHours(2), day.plusHours(3)), RESULT, generation);
+
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.get(key(day.plusHours(2), day.plusHours(3)))).isNull();
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        StatsResultCache cache = cache(2, 5000);
+        StatsResultCache.Key first = key(day, day.plusHours(1));
+        StatsResultCache.Key second = key(day.plusHours(1), day.plusHours(2));
+        StatsResultCache.Key third = key(day.plusHours(2), day.plusHours(3));
+        cache.put(first, RESULT, cache.generation());
+        cache.put(second, RESULT, cache.generation());
+        cache.get(first);
+
+        cache.put(third, RESULT, cache.generation());
+
+        assertThat(cache.get(second)).isNull();
+        assertThat(cache.get(first)).isEqualTo(RESULT);
+        assertThat(cache.get(third)).isEqualTo(RESULT);
+        assertThat(meterRegistry.get("stats.cache.size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void windowsReachingNowExpireAfterTtl() throws InterruptedException {
+        StatsResultCache cache = cache(10, 50);
+        StatsResultCache.Key recent = key(day, LocalDateTime.now().plusHours(1));
+        StatsResultCache.Key closed = key(day, day.plusHours(1));
+        cache.put(recent, RESULT, cache.generation());
+        cache.put(closed, RESULT, cache.generation());
+        assertThat(cache.get(recent)).isEqualTo(RESULT);
+
+        Thread.sleep(100);
+
+        assertThat(cache.get(recent)).isNull();
+        assertThat(cache.get(closed)).isEqualTo(RESULT);
+    }
+
+    @Test
+    void zeroSizeDisablesCache() {
+        StatsResultCache cache = cache(0, 5000);
+        StatsResultCache.Key key = key(day, day.plusHours(1));
+
+        cache.put(key, RESULT, cache.generation());
+
+        assertThat(cache.get(key)).isNull();
+    }
+
+    private StatsResultCache cache(int maxSize, long recentTtlMs) {
+        return new StatsResultCache(meterRegistry, maxSize, recentTtlMs);
+    }
+
+    private static StatsResultCache.Key key(LocalDateTime start, LocalDateTime end, String... uris) {
+        return StatsResultCache.key(start, end, uris.length == 0 ? null : uris, false, false);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.ewm.stats.Service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Топ uri по часовым корзинам: суммирование по окну, вытеснение редких uri, покрытие окна и retention.
+ */
+class TopUriTrackerTest {
+    private final LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+    @Test
+    void topSumsHoursInsideWindow() {
+        TopUriTracker tracker = new TopUriTracker(10, 24);
+        tracker.addHits(hits(hour.minusHours(2), 1, 5));
+        tracker.addHits(hits(hour.minusHours(1), 1, 1));
+        tracker.addHits(hits(hour.minusHours(1), 2, 4));
+        tracker.addHits(hits(hour, 3, 9));
+
+        List<Map.Entry<Long, Long>> top = tracker.top(hour.minusHours(2), hour.minusHours(1).plusMinutes(59), 2);
+
+        assertThat(top).hasSize(2);
+        assertThat(uriId(top.get(0))).isEqualTo(1);
+        assertThat(top.get(0).getValue()).isEqualTo(6);
+        assertThat(uriId(top.get(1))).isEqualTo(2);
+        assertThat(top.get(1).getValue()).isEqualTo(4);
+        assertThat(TopUriTracker.appId(top.get(0).getKey())).isEqualTo(7);
+    }
+
+    @Test
+    void rareUrisAreEvictedFromFullBucket() {
+        TopUriTracker tracker = new TopUriTracker(3, 24);
+        tracker.addHits(hits(hour, 1, 100));
+        tracker.addHits(hits(hour, 2, 50));
+        for (int uriId = 10; uriId < 30; uriId++) {
+            tracker.addHits(hits(hour, uriId, 1));
+        }
+
+        List<Map.Entry<Long, Long>> top = tracker.top(hour, hour, 10);
+
+        assertThat(top).hasSize(3);
+        assertThat(uriId(top.get(0))).isEqualTo(1);
+        assertThat(uriId(top.get(1))).isEqualTo(2);
+        // единственный слот для хвоста достаётся последнему, со счётчиком всех вытесненных
+        assertThat(uriId(top.get(2))).isEqualTo(29);
+        assertThat(top.get(2).getValue()).isEqualTo(20);
+    }
+
+    @Test
+    void coversOnlyHoursObservedInFull() {
+        TopUriTracker tracker = new TopUriTracker(10, 2);
+
+        assertThat(tracker.covers(hour)).isFalse();
+        assertThat(tracker.covers(hour.plusHours(1))).isTrue();
+        assertThat(tracker.covers(hour.minusHours(3))).isFalse();
+    }
+
+    @Test
+    void hoursOlderThanRetentionAreDropped() {
+        TopUriTracker tracker = new TopUriTracker(10, 2);
+        tracker.addHits(hits(hour.minusHours(5), 1, 3));
+        tracker.addHits(hits(hour.minusHours(1), 2, 1));
+
+        assertThat(tracker.top(hour.minusHours(6), hour, 10))
+                .extracting(TopUriTrackerTest::uriId)
+                .containsExactly(2);
+    }
+
+    private static List<EndpointHit> hits(LocalDateTime hour, int uriId, int count) {
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hits.add(EndpointHit.builder().appId(7).uriId(uriId).timestamp(hour.plusMinutes(i % 60)).build());
+        }
+        return hits;
+    }
+
+    private static int uriId(Map.Entry<Long, Long> entry) {
+        return TopUriTracker.uriId(entry.getKey());
+    }
+}
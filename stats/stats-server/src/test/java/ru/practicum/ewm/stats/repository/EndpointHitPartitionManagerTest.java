@@ -0,0 +1,108 @@
+package ru.practicum.ewm.stats.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Секции endpointhit на настоящем PostgreSQL: в H2 секционирования нет.
+ * Запускается только с отдельной базой, которую схема пересоздаёт при старте:
+ * SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/stats_test mvn test -Dtest=EndpointHitPartitionManagerTest
+ */
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = "jdbc:postgresql:.*")
+@SpringBootTest(properties = {"stats.partitions.days-ahead=3", "stats.retention-days=10"})
+class EndpointHitPartitionManagerTest {
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Autowired
+    private EndpointHitPartitionManager partitionManager;
+
+    @Autowired
+    private CompactionRepository compactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM endpointhit");
+    }
+
+    @Test
+    void defaultRowsAreMovedIntoCreatedPartition() {
+        LocalDate day = LocalDate.now().plusDays(2);
+        jdbcTemplate.execute("DROP TABLE " + partition(day));
+        addHit(day.atTime(12, 0));
+        assertThat(count("endpointhit_default")).isEqualTo(1);
+
+        partitionManager.maintain();
+
+        assertThat(isPartition(partition(day))).isTrue();
+        assertThat(count(partition(day))).isEqualTo(1);
+        assertThat(count("endpointhit_default")).isZero();
+    }
+
+    @Test
+    void retentionDeletesExpiredDefaultRows() {
+        LocalDate today = LocalDate.now();
+        LocalDate expired = today.minusDays(20);
+        jdbcTemplate.execute("CREATE TABLE " + partition(expired) + " PARTITION OF endpointhit FOR VALUES FROM ('"
+                + Timestamp.valueOf(expired.atStartOfDay()) + "') TO ('" + Timestamp.valueOf(expired.plusDays(1).atStartOfDay()) + "')");
+        addHit(expired.atTime(12, 0));
+        addHit(today.minusDays(30).atTime(12, 0));
+        addHit(today.minusDays(5).atTime(12, 0));
+        assertThat(count("endpointhit_default")).isEqualTo(2);
+
+        partitionManager.maintain();
+
+        assertThat(isPartition(partition(expired))).isFalse();
+        assertThat(count("endpointhit_default")).isEqualTo(1);
+        assertThat(compactionRepository.getWatermark()).isEqualTo(today.minusDays(10).atStartOfDay());
+    }
+
+    @Test
+    void failedPartitionIsEscalated() {
+        LocalDate day = LocalDate.now().plusDays(1);
+        jdbcTemplate.execute("DROP TABLE " + partition(day));
+        // обычная таблица с именем секции не даёт её создать
+        jdbcTemplate.execute("CREATE TABLE " + partition(day) + " (id BIGINT)");
+        try {
+            assertThatThrownBy(() -> partitionManager.maintain())
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining(partition(day));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE " + partition(day));
+            partitionManager.maintain();
+        }
+        assertThat(isPartition(partition(day))).isTrue();
+    }
+
+    private void addHit(LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO endpointhit (app_id, uri_id, ip, timestamp) VALUES (1, 1, ?, ?)",
+                new byte[]{127, 0, 0, 1}, Timestamp.valueOf(timestamp));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private boolean isPartition(String name) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE c.relname = ?", Integer.class, name) > 0;
+    }
+
+    private static String partition(LocalDate day) {
+        return "endpointhit_" + day.format(SUFFIX);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.ewm.stats.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+import ru.practicum.ewm.stats.Service.StatsResultCache;
+import ru.practicum.ewm.stats.Service.StatsService;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Минутные приращения пишутся вместе с хитами и видны запросам до переноса в агрегаты; flush переносит их один раз.
+ */
+// своя база: контексты других тестов остаются в кэше Spring и продолжают сбрасывать delta по расписанию
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:rollups", "stats.rollup.flush-interval-ms=3600000"})
+@ActiveProfiles("test")
+class RollupRepositoryTest {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String URI = "/events/1";
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private RollupRepository rollupRepository;
+
+    @Autowired
+    private StatsResultCache statsResultCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 10:30 три часа назад: минутные сегменты по краям окна и часовой между ними
+    private final LocalDateTime start = LocalDateTime.now().minusHours(3).truncatedTo(ChronoUnit.HOURS).plusMinutes(30);
+
+    @AfterEach
+    void tearDown() {
+        for (String table : new String[]{"endpointhit", "endpointhit_minute", "endpointhit_hour", "endpointhit_hll",
+                "endpointhit_hll_delta", "endpointhit_rollup_delta"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void deltasAreVisibleBeforeFlushAndFoldedOnce() {
+        // по хиту в минуту на протяжении двух часов, пачками по 10
+        List<EndpointHitDto> batch = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            batch.add(new EndpointHitDto(null, "ewm-main-service", URI, "10.0.0." + i, start.plusMinutes(i).format(FORMAT)));
+            if (batch.size() == 10) {
+                statsService.addRequests(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        assertThat(count("endpointhit_rollup_delta")).isEqualTo(120);
+        assertThat(count("endpointhit_hour")).isZero();
+        assertThat(hits()).isEqualTo(120);
+
+        rollupRepository.flush();
+        rollupRepository.flush();
+
+        assertThat(count("endpointhit_rollup_delta")).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(hits) FROM endpointhit_minute", Long.class)).isEqualTo(120);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(hits) FROM endpointhit_hour", Long.class)).isEqualTo(120);
+        assertThat(count("endpointhit_hour")).isEqualTo(3);
+        assertThat(hits()).isEqualTo(120);
+    }
+
+    private long hits() {
+        statsResultCache.clear();
+        List<ViewStats> stats = statsService.getStats(start.format(FORMAT), start.plusHours(2).format(FORMAT),
+                new String[]{URI}, false, false);
+        assertThat(stats).hasSize(1);
+        return stats.get(0).getHits();
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
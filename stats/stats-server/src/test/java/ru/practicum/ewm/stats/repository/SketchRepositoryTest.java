@@ -0,0 +1,110 @@
+package ru.practicum.ewm.stats.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewm.dto.stats.statsDto.EndpointHitDto;
+import ru.practicum.ewm.dto.stats.statsDto.ViewStats;
+import ru.practicum.ewm.stats.Service.StatsCompactor;
+import ru.practicum.ewm.stats.Service.StatsResultCache;
+import ru.practicum.ewm.stats.Service.StatsService;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Скетчи записываются вместе с хитами: сжатие сразу после записи, до сброса delta, не теряет уникальных ip.
+ */
+// своя база: контексты других тестов остаются в кэше Spring и продолжают сбрасывать delta по расписанию
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:sketches", "stats.compaction.horizon-hours=1",
+        "stats.compaction.cron=-", "stats.sketch.flush-interval-ms=3600000"})
+@ActiveProfiles("test")
+class SketchRepositoryTest {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String URI = "/events/1";
+    private static final int IPS = 200;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private SketchRepository sketchRepository;
+
+    @Autowired
+    private StatsCompactor statsCompactor;
+
+    @Autowired
+    private StatsResultCache statsResultCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime hour = LocalDateTime.now().minusHours(3).truncatedTo(ChronoUnit.HOURS);
+
+    @AfterEach
+    void tearDown() {
+        for (String table : new String[]{"endpointhit", "endpointhit_minute", "endpointhit_hour", "endpointhit_hll",
+                "endpointhit_hll_delta", "endpointhit_rollup_delta", "stats_compaction"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void sketchesSurviveCompactionBeforeFlush() {
+        addHits();
+        assertThat(count("endpointhit_hll")).isZero();
+
+        statsCompactor.compact();
+
+        assertThat(count("endpointhit")).isZero();
+        assertThat(uniqueHits()).isBetween((long) (IPS * 0.98), (long) (IPS * 1.02));
+    }
+
+    @Test
+    void flushFoldsDeltasIntoSketchRows() {
+        addHits();
+        long beforeFlush = uniqueHits();
+
+        sketchRepository.flush();
+
+        assertThat(count("endpointhit_hll_delta")).isZero();
+        assertThat(count("endpointhit_hll")).isEqualTo(1);
+        // повторный сброс уже слитых регистров ничего не меняет
+        sketchRepository.flush();
+        assertThat(uniqueHits()).isEqualTo(beforeFlush);
+    }
+
+    // Хиты пачками по 50, каждый ip дважды: по delta-строке на пачку
+    private void addHits() {
+        List<EndpointHitDto> batch = new ArrayList<>();
+        for (int i = 0; i < IPS * 2; i++) {
+            batch.add(new EndpointHitDto(null, "ewm-main-service", URI, "10.0." + (i % IPS / 256) + "." + (i % IPS % 256),
+                    hour.plusSeconds(i).format(FORMAT)));
+            if (batch.size() == 50) {
+                statsService.addRequests(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        assertThat(count("endpointhit_hll_delta")).isEqualTo(IPS * 2 / 50);
+    }
+
+    private long uniqueHits() {
+        statsResultCache.clear();
+        List<ViewStats> stats = statsService.getStats(hour.format(FORMAT), hour.plusHours(1).format(FORMAT),
+                new String[]{URI}, true, true);
+        assertThat(stats).hasSize(1);
+        return stats.get(0).getHits();
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.ewm.stats.sketch;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Оценка числа уникальных значений в пределах 3σ, слияние равно объединению, сериализация без потерь.
+ */
+class HyperLogLogTest {
+    // 3σ при стандартной ошибке 1.04 / sqrt(2^14)
+    private static final double ERROR_BOUND = 3 * 1.04 / Math.sqrt(1 << HyperLogLog.DEFAULT_PRECISION);
+
+    @Test
+    void estimateStaysWithinErrorBound() {
+        for (int n : new int[]{10, 1_000, 50_000, 500_000}) {
+            HyperLogLog sketch = sketch(0, n);
+            assertThat((double) sketch.estimate()).as("n = %d", n).isCloseTo(n, within(n));
+        }
+    }
+
+    @Test
+    void duplicatesDoNotChangeEstimate() {
+        HyperLogLog sketch = sketch(0, 10_000);
+        long estimate = sketch.estimate();
+
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(ip(i));
+        }
+
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        HyperLogLog first = sketch(0, 60_000);
+        HyperLogLog second = sketch(40_000, 100_000);
+
+        first.merge(second);
+
+        assertThat(first.toBytes()).isEqualTo(sketch(0, 100_000).toBytes());
+        assertThat((double) first.estimate()).isCloseTo(100_000, within(100_000));
+    }
+
+    @Test
+    void mergeRejectsDifferentPrecision() {
+        assertThatThrownBy(() -> new HyperLogLog(12).merge(new HyperLogLog(14)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void smallSketchIsStoredSparse() {
+        HyperLogLog sketch = sketch(0, 100);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes.length).isLessThan(1 << HyperLogLog.DEFAULT_PRECISION);
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void largeSketchIsStoredDense() {
+        HyperLogLog sketch = sketch(0, 100_000);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes.length).isEqualTo(2 + (1 << HyperLogLog.DEFAULT_PRECISION));
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void unknownEncodingIsRejected() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{7, 14}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HyperLogLog sketch(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add(ip(i));
+        }
+        return sketch;
+    }
+
+    private static String ip(int i) {
+        return "10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF);
+    }
+
+    private static Offset<Double> within(int n) {
+        return Offset.offset(Math.max(1, n * ERROR_BOUND));
+    }
+}
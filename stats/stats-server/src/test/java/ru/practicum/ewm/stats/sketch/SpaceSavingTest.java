@@ -0,0 +1,88 @@
+package ru.practicum.ewm.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Вытеснение минимального счётчика и гарантии Space-Saving: завышение не больше total / capacity,
+ * частые ключи не теряются.
+ */
+class SpaceSavingTest {
+
+    @Test
+    void countsAreExactWhileKeysFit() {
+        SpaceSaving summary = new SpaceSaving(3);
+        summary.offer(1, 5);
+        summary.offer(2, 1);
+        summary.offer(1, 2);
+        summary.offer(3, 4);
+
+        assertThat(counts(summary)).containsOnly(entry(1, 7), entry(2, 1), entry(3, 4));
+    }
+
+    @Test
+    void newKeyEvictsMinimumAndInheritsItsCount() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.offer(1, 5);
+        summary.offer(2, 2);
+
+        summary.offer(3, 1);
+
+        assertThat(counts(summary)).containsOnly(entry(1, 5), entry(3, 3));
+        // следующий новый ключ вытесняет уже 3, а не 1
+        summary.offer(4, 1);
+        assertThat(counts(summary)).containsOnly(entry(1, 5), entry(4, 4));
+    }
+
+    @Test
+    void estimatesAreBoundedAndHeavyHittersKept() {
+        int capacity = 50;
+        SpaceSaving summary = new SpaceSaving(capacity);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        long total = 0;
+        // распределение с длинным хвостом: ключ k встречается с вероятностью ~ 1/k
+        for (int i = 0; i < 200_000; i++) {
+            long key = (long) Math.floor(Math.exp(random.nextDouble() * Math.log(10_000)));
+            summary.offer(key, 1);
+            exact.merge(key, 1L, Long::sum);
+            total++;
+        }
+
+        Map<Long, Long> estimates = counts(summary);
+        long bound = total / capacity;
+        assertThat(estimates).hasSize(capacity);
+        assertThat(estimates.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(total);
+        for (Map.Entry<Long, Long> estimate : estimates.entrySet()) {
+            long actual = exact.get(estimate.getKey());
+            assertThat(estimate.getValue()).isBetween(actual, actual + bound);
+        }
+        for (Map.Entry<Long, Long> actual : exact.entrySet()) {
+            if (actual.getValue() > bound) {
+                assertThat(estimates).containsKey(actual.getKey());
+            }
+        }
+    }
+
+    @Test
+    void capacityMustBePositive() {
+        assertThatThrownBy(() -> new SpaceSaving(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Map<Long, Long> counts(SpaceSaving summary) {
+        Map<Long, Long> counts = new HashMap<>();
+        summary.addCountsTo(counts);
+        return counts;
+    }
+
+    private static Map.Entry<Long, Long> entry(long key, long count) {
+        return new AbstractMap.SimpleEntry<>(key, count);
+    }
+}